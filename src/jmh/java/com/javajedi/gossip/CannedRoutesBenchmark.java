@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Both engines, and the bonus rules, over the canned routes of GossipRunner.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CannedRoutesBenchmark {
+
+    @Param({"ROUTE0", "ROUTE1", "ROUTE2", "ROUTE3", "ROUTE4", "ROOUTE5"})
+    public String route;
+
+    private int[][] routes;
+
+    @Setup
+    public void setup() {
+        routes = GossipRunner.CannedRoute.valueOf(route).route;
+    }
+
+    @Benchmark
+    public String gossip() {
+        return new Gossip(routes).eval().getResult();
+    }
+
+    @Benchmark
+    public String eventGossip() {
+        return new EventGossip(routes).eval().getResult();
+    }
+
+    @Benchmark
+    public String bonus() {
+        return new GossipBonus(routes).eval().getResult();
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+
+/*
+ * Both engines, and the bonus rules, over generated routes.
+ *
+ * stopRange is the number of distinct stops the routes pick from: the smaller it is, the more often drivers meet.
+ * COMPLETES routes are linked through a hub stop so that all gossip gets around. NEVER routes are split into two
+ * halves with a hub each, bridged by a stop that the first and the last driver share but are never at at the same time:
+ * the routes are connected, so every engine has to simulate until a whole period goes by without news.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GeneratedRoutesBenchmark {
+
+    public enum Outcome { COMPLETES, NEVER }
+
+    // the same for every engine, high enough that only a quiet period ends the NEVER runs
+    static final int HORIZON = Integer.MAX_VALUE - 1;
+
+    @Param({"8", "64", "512"})
+    public int drivers;
+
+    @Param({"4", "16", "64"})
+    public int stopsPerRoute;
+
+    @Param({"16", "1024"})
+    public int stopRange;
+
+    @Param({"COMPLETES", "NEVER"})
+    public Outcome outcome;
+
+    private int[][] routes;
+
+    @Setup
+    public void setup() {
+        routes = generate(drivers, stopsPerRoute, stopRange, outcome, 42);
+    }
+
+    static int[][] generate(int drivers, int stopsPerRoute, int stopRange, Outcome outcome, long seed) {
+        Random random = new Random(seed);
+        int[][] routes = new int[drivers][stopsPerRoute];
+        for(int i = 0; i < drivers; ++i) {
+            // NEVER: the second half of the drivers uses its own stops
+            int offset = outcome == Outcome.NEVER && i >= drivers / 2 ? stopRange : 0;
+            for(int k = 0; k < stopsPerRoute; ++k) {
+                routes[i][k] = 1 + offset + random.nextInt(stopRange);
+            }
+        }
+        // even drivers meet at their hub at minute 0, odd drivers at minute 1, the first one is there both times:
+        // hub 0 for everybody, or hub 0 for the first half and hub -1 for the second one
+        int half = outcome == Outcome.NEVER ? drivers / 2 : drivers;
+        for(int i = 0; i < drivers; ++i) {
+            routes[i][i % 2] = i < half ? 0 : -1;
+        }
+        routes[0][1] = 0;
+        if(outcome == Outcome.NEVER) {
+            routes[half][1] = -1;
+            // the bridge: all routes have the same length, so minutes 2 and 3 of the period never coincide
+            routes[0][2] = -2;
+            routes[drivers - 1][3] = -2;
+        }
+        return routes;
+    }
+
+    @Benchmark
+    public String gossip() {
+        return new Gossip(routes).setHorizon(HORIZON).eval().getResult();
+    }
+
+    @Benchmark
+    public String eventGossip() {
+        return new EventGossip(routes).setHorizon(HORIZON).eval().getResult();
+    }
+
+    @Benchmark
+    public String bonus() {
+        return new GossipBonus(routes).setHorizon(HORIZON).eval().getResult();
+    }
+}
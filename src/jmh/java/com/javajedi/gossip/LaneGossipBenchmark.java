@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/*
+ * 64 small scenarios with the same profile: one Gossip each, or all of them in the lanes of one LaneGossip.
+ *
+ * stopRange is the number of distinct stops per driver the routes pick from, the smaller the sooner gossip gets around.
+ * With quiet, the first and the last driver share two stops but are never there at the same time, so every lane is
+ * "never" only after a whole period without news (the slowest case for lanes, see LaneGossip).
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LaneGossipBenchmark {
+
+    @Param({"6", "14"})
+    public int drivers;
+
+    @Param({"1", "2"})
+    public int stopRange;
+
+    @Param({"false", "true"})
+    public boolean quiet;
+
+    private List<int[][]> scenarios;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        int[] lengths = new int[drivers];
+        for(int i = 0; i < drivers; ++i) {
+            lengths[i] = 3 + random.nextInt(4);
+        }
+        if(quiet) {
+            lengths[0] = 3;
+            lengths[drivers - 1] = 3;
+        }
+        scenarios = new ArrayList<>();
+        for(int l = 0; l < LaneGossip.LANES; ++l) {
+            int[][] routes = new int[drivers][];
+            for(int i = 0; i < drivers; ++i) {
+                routes[i] = new int[lengths[i]];
+                for(int k = 0; k < lengths[i]; ++k) {
+                    routes[i][k] = random.nextInt(stopRange * drivers);
+                }
+            }
+            if(quiet) {
+                routes[0] = new int[] {1000, 1001, routes[0][2]};
+                routes[drivers - 1] = new int[] {1001, 1000, 1002};
+            }
+            scenarios.add(routes);
+        }
+    }
+
+    @Benchmark
+    public int gossip() {
+        int complete = 0;
+        for(int[][] routes : scenarios) {
+            complete += "never".equals(new Gossip(routes).eval().getResult()) ? 0 : 1;
+        }
+        return complete;
+    }
+
+    @Benchmark
+    public int lanes() {
+        LaneGossip lanes = new LaneGossip(scenarios).eval();
+        int complete = 0;
+        for(int l = 0; l < lanes.lanes(); ++l) {
+            complete += "never".equals(lanes.getResult(l)) ? 0 : 1;
+        }
+        return complete;
+    }
+}
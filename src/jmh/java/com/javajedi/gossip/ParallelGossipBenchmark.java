@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Scaling of ParallelGossip: one large scenario on 1 to N threads, next to the serial Gossip.
+ *
+ * The speedup for n threads is the time of threads=1 divided by the time of threads=n (gradle jmh
+ * -Pjmh.include=ParallelGossip). Threads beyond the number of cores only add barrier overhead.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ParallelGossipBenchmark {
+
+    @Param({"10000", "50000"})
+    public int drivers;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private int[][] routes;
+
+    @Setup
+    public void setup() {
+        routes = GeneratedRoutesBenchmark.generate(drivers, 32, drivers / 4, GeneratedRoutesBenchmark.Outcome.COMPLETES, 42);
+    }
+
+    @Benchmark
+    public String serial() {
+        return new Gossip(routes).eval().getResult();
+    }
+
+    @Benchmark
+    public String parallel() {
+        return new ParallelGossip(routes, threads).eval().getResult();
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.SplittableRandom;
+
+/*
+ * Deterministic generator of synthetic route sets (fleets).
+ *
+ * Parameters:
+ *   drivers: routes per scenario
+ *   minLength..maxLength: route lengths, uniformly distributed
+ *   stops: size of the stop id universe, stop ids are 1..stops
+ *   hubs, hubBias: each stop is one of the first 'hubs' stop ids with probability hubBias (a few popular stops),
+ *   otherwise any stop of the universe
+ *
+ * Scenario k only depends on the seed and k, so scenarios can be generated in any order, or in parallel, and are
+ * the same every time. write streams scenarios in the text format of GossipRunner -f (scenarios separated by empty
+ * lines, as GossipRunner -m reads them), straight into bytes without building strings.
+ */
+public class FleetGenerator {
+
+    private final long seed;
+    private int drivers = 100;
+    private int minLength = 4;
+    private int maxLength = 16;
+    private int stops = 1000;
+    private int hubs = 0;
+    private double hubBias = 0;
+
+    public FleetGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    // the routes of scenario k
+    public int[][] scenario(long k) {
+        checkHubs();
+        SplittableRandom random = random(k);
+        int[][] routes = new int[drivers][];
+        for(int i = 0; i < drivers; ++i) {
+            routes[i] = new int[random.nextInt(minLength, maxLength + 1)];
+            for(int j = 0; j < routes[i].length; ++j) {
+                routes[i][j] = nextStop(random);
+            }
+        }
+        return routes;
+    }
+
+    // the stream of scenario k. The index is mixed into the seed: seed + k * gamma would give scenario k+1 the stream
+    // of scenario k shifted by one draw, as gamma is the one SplittableRandom steps its own seed by
+    private SplittableRandom random(long k) {
+        return new SplittableRandom(mix64(seed ^ mix64(k)));
+    }
+
+    // the 64 bit finalizer of SplittableRandom (Stafford's variant 13)
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private int nextStop(SplittableRandom random) {
+        if(hubs > 0 && random.nextDouble() < hubBias) {
+            return 1 + random.nextInt(hubs);
+        }
+        return 1 + random.nextInt(stops);
+    }
+
+    // writes scenarios first..first+count-1 as text. Generates the same stops as scenario(k), one route at a time
+    public void write(OutputStream out, long first, long count) throws IOException {
+        checkHubs();
+        byte[] buffer = new byte[64 << 10];
+        int size = 0;
+        for(long k = first; k < first + count; ++k) {
+            SplittableRandom random = random(k);
+            if(k > first) {
+                buffer[size++] = '\n'; // empty line between scenarios
+            }
+            for(int i = 0; i < drivers; ++i) {
+                int length = random.nextInt(minLength, maxLength + 1);
+                for(int j = 0; j < length; ++j) {
+                    if(size > buffer.length - 16) {
+                        out.write(buffer, 0, size);
+                        size = 0;
+                    }
+                    if(j > 0) {
+                        buffer[size++] = ',';
+                    }
+                    size = putInt(buffer, size, nextStop(random));
+                }
+                buffer[size++] = '\n';
+            }
+        }
+        out.write(buffer, 0, size);
+        out.flush();
+    }
+
+    private void checkHubs() {
+        if(hubs > stops) {
+            throw new IllegalStateException("More hubs than stops: "+hubs+" > "+stops);
+        }
+    }
+
+    // decimal digits of a positive int, returns the new size
+    private static int putInt(byte[] buffer, int size, int value) {
+        int digits = 1;
+        for(int v = value; v >= 10; v /= 10) {
+            ++digits;
+        }
+        for(int p = size + digits - 1; p >= size; --p) {
+            buffer[p] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return size + digits;
+    }
+
+    public FleetGenerator setDrivers(int drivers) {
+        if(drivers < 1) {
+            throw new IllegalArgumentException("Invalid number of drivers: "+drivers);
+        }
+        this.drivers = drivers;
+        return this;
+    }
+
+    // route lengths are uniformly distributed in minLength..maxLength
+    public FleetGenerator setLengths(int minLength, int maxLength) {
+        if(minLength < 1 || maxLength < minLength) {
+            throw new IllegalArgumentException("Invalid route lengths: "+minLength+"-"+maxLength);
+        }
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        return this;
+    }
+
+    // stop ids are 1..stops
+    public FleetGenerator setStops(int stops) {
+        if(stops < 1) {
+            throw new IllegalArgumentException("Invalid number of stops: "+stops);
+        }
+        this.stops = stops;
+        return this;
+    }
+
+    // stop ids 1..hubs are picked with probability hubBias (on top of being part of the universe)
+    public FleetGenerator setHubs(int hubs, double hubBias) {
+        if(hubs < 0 || !(hubBias >= 0 && hubBias <= 1)) {
+            throw new IllegalArgumentException("Invalid hubs: "+hubs+" with bias "+hubBias);
+        }
+        this.hubs = hubs;
+        this.hubBias = hubBias;
+        return this;
+    }
+
+    public int getDrivers() {
+        return drivers;
+    }
+}
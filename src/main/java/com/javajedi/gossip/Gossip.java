@@ -18,8 +18,12 @@
  */
 package com.javajedi.gossip;
 
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
-import java.util.stream.IntStream;
 
 /*
  * My solution for the DZone Java Code Challenge: Bus Gossip
@@ -27,91 +31,661 @@ import java.util.stream.IntStream;
  *
  * Notes:
  *   Not threadsafe
- *   Maximum number of drivers is 32 (uses int to encode  gossipset)
+ *   Gossip sets are packed into a flat long[] (see GossipBits), so the number of drivers is only limited by memory
+ *   Drivers are periodic with period LCM(route lengths) and gossip only grows, so once a whole period passes
+ *   without anybody learning something new the result is "never", no matter how long the horizon is
+ *   Before simulating, the graph of drivers that ever share a stop is checked (see StopGraph): if it is disconnected
+ *   the result is "never", and its diameter is a lower bound of the result
+ *   When the period is small enough the meeting groups of each phase can be compiled once (see MeetingSchedule),
+ *   each minute then only applies precomputed unions. A schedule can be shared by many Gossip instances, e.g. to
+ *   evaluate the same routes with different initial gossip
+ *   Routes are compiled into a RouteLayout: stops of all routes in one array, remapped to dense ids, so drivers are
+ *   bucketed by stop in plain arrays instead of a hash map
+ *   The movement rule is pluggable (see GossipRule). Under the bonus rule drivers that are gossiping stay put, so
+ *   positions are no longer periodic: schedules only apply to the standard rule. All per-minute buffers are
+ *   allocated once (and reused by reset), so simulating doesn't allocate
+ *   Minutes can be watched through a TickPublisher (setTickPublisher): subscribers get immutable ticks on their own
+ *   threads, the publisher's policy decides whether a slow subscriber drops ticks or slows the simulation down.
+ *   setDebug is a TextTickSubscriber on the simulation's thread
+ *   setTraceStream records a binary trace (see TraceRecorder) instead of the text of setDebug, TraceReplay renders it
+ *   setRecordArrivals records when each driver learned each gossip (see GossipArrivals) in the same pass
+ *   setMetrics counts ticks, meetings, bits transferred, stop occupancy and phase times into local fields, added to
+ *   the shared GossipMetrics once per evaluation
  */
 public class Gossip {
 
+    public static final int DEFAULT_HORIZON = 60 * 8; // minutes in a working day
+    static final int PHASE_SAMPLE = 16; // with metrics, phases are timed every this many ticks (a power of two)
+
     private int mins = 0;         // elapsed minutes
+    private int horizon = DEFAULT_HORIZON; // last minute that is simulated
+    private int finalTick = -1;   // minute at which the result was decided
     private int[][] routes;        // the bus routes
-    private int allGossip;           // all gossips (2^n-1)
+    private RouteLayout layout;    // the routes flattened, with dense stop ids
+    private int words;             // words per gossip set
     private int[] currentLocation; // current location of each driver
-    private int[] currentGossip;   // current gossip set
+    private long[] currentGossip;  // current gossip set of each driver, 'words' longs per driver
+    private long[] allGossip;      // the gossip set every driver has to learn, union of the initial gossip
+    private boolean isCustomGossip = false; // initial gossip was changed by setInitialGossip
+    private int[] nextAtStop;      // next driver sharing the same stop this minute (-1 terminates)
+    private int[] stopHead;        // dense stop -> first driver at that stop this minute (-1 if none)
+    private int[] touchedStops;    // dense stops occupied this minute
+    private GossipRule rule = GossipRule.STANDARD;
+    private int[] stayers;         // drivers that don't move this minute (bonus rule only)
+    private int stayerCount = 0;
+    private MeetingSchedule schedule = null; // compiled meeting groups, null when stepping minute by minute
+    private int scheduleBound = 0; // largest period to compile a schedule for, 0 to never compile one
+    private StopGraph graph = null; // drivers linked by shared stops, built on first use
     private String result = null; // result of evaluation;
     private boolean isDebug = false;
+    private PrintWriter outputWriter = null;
+    private OutputStream traceStream = null;
+    private TraceRecorder trace = null; // records the current evaluation, null when not tracing
+    private boolean isRecordArrivals = false;
+    private GossipArrivals arrivals = null; // arrivals of the last evaluation, null when not recorded
+    private boolean isRecording = false; // tracing or recording arrivals: changed groups are recorded
+    private long[] groupRow;       // gossip of a group's head before merging, while recording
+    private int[] groupMembers;    // members of a group, while recording
+    private GossipMetrics metrics = null;
+    private TickPublisher tickPublisher = null;
+    private GossipQuery[] queries = null; // asked by query, null when evaluating
+    private int[] answers;         // minutes of each query, -1 while unanswered
+    private int pendingQueries;
+    private TickPublisher debugTicks = null; // prints the current evaluation when debugging
+    private boolean isCounting = false; // metrics set: meetings, bits and occupancy are counted
+    private long tickCount;        // counts of the current evaluation, added to metrics at its end
+    private long sampledTicks;     // ticks whose phases were timed
+    private long meetingCount;
+    private long bitsTransferred;
+    private final long[] occupancy = new long[GossipMetrics.BUCKETS];
 
     public Gossip(final int[][] routes) {
+        reset(routes);
+    }
+
+    // same, straight from a flat route table (e.g. loaded by RouteLoader or RouteFile) without an array per route.
+    // A factory rather than a constructor, so new Gossip(null) stays unambiguous
+    public static Gossip of(final RouteTable table) {
+        return new Gossip().reset(table);
+    }
+
+    private Gossip() {}
+
+    // makes this instance evaluate other routes, reusing its buffers where they are large enough.
+    // Settings (rule, horizon, schedule bound, debug, output writer, trace stream, record arrivals) are kept
+    public Gossip reset(final int[][] routes) {
         Objects.requireNonNull(routes, "Illegal number of routes");
-        if(routes.length ==0 || routes.length > 32) {
+        if(routes.length == 0) {
             throw new IllegalArgumentException("Invalid number of routes");
         }
+        return reset(routes, RouteLayout.of(routes));
+    }
+
+    // same as reset(routes), from a flat route table
+    public Gossip reset(final RouteTable table) {
+        Objects.requireNonNull(table, "Illegal number of routes");
+        if(table.drivers() == 0) {
+            throw new IllegalArgumentException("Invalid number of routes");
+        }
+        return reset(null, RouteLayout.of(table));
+    }
+
+    // same as reset(routes), with the routes already compiled (e.g. derived from the layout of similar routes).
+    // routes may be null, they are only rebuilt from the layout if tracing, debugging or compiling a schedule
+    Gossip reset(final int[][] routes, final RouteLayout layout) {
         this.routes = routes;
-        this.allGossip = (int) Math.pow(2, routes.length)-1;
-        this.currentLocation = new int[routes.length];
-        this.currentGossip = new int[routes.length];
-        for(int i=0; i<routes.length; ++i) {
-            currentGossip[i] = 1 << i;
+        this.layout = layout;
+        this.words = GossipBits.words(layout.drivers);
+        if(currentLocation == null || currentLocation.length < layout.drivers) {
+            this.currentLocation = new int[layout.drivers];
+            this.nextAtStop = new int[layout.drivers];
+            this.touchedStops = new int[layout.drivers];
+            this.stayers = new int[layout.drivers];
+        } else {
+            Arrays.fill(currentLocation, 0);
+        }
+        if(stopHead == null || stopHead.length < layout.stopCount) {
+            this.stopHead = new int[layout.stopCount];
+        }
+        Arrays.fill(stopHead, -1);
+        if(currentGossip == null || currentGossip.length < layout.drivers * words) {
+            this.currentGossip = GossipBits.initial(layout.drivers);
+        } else {
+            GossipBits.reset(currentGossip, layout.drivers);
         }
+        this.mins = 0;
+        this.stayerCount = 0;
+        this.finalTick = -1;
+        this.isCustomGossip = false;
+        this.schedule = null;
+        this.graph = null;
+        this.arrivals = null;
+        this.result = null;
+        this.queries = null;
+        return this;
     }
 
-    public String getResult() {
+    // evaluates the routes, writing the result to the output writer (if any)
+    public Gossip eval() {
         // only eval once
         if(result == null) {
-            // loop until all gossip is disseminated, or until we've tried for 8 hours
-            for(mins = 0; mins <= 60 * 8; ++mins) {
-                // exchange gossip
-                for(int i = 0; i < routes.length; ++i) {
-                    for(int j = 0; j < routes.length; ++j) {
-                        if(i == j) {
-                            continue;
-                        }
-                        if(routes[i][currentLocation[i]] == routes[j][currentLocation[j]]) {
-                            currentGossip[i] |= currentGossip[j];
-                        }
-                    }
+            if(queries != null) {
+                throw new IllegalStateException("Already queried, reset first");
+            }
+            result = run();
+        }
+        if(outputWriter != null) {
+            outputWriter.println(result);
+        }
+        return this;
+    }
+
+    // answers the queries in one simulation, stopping as soon as all of them are answered (or can't be any more).
+    // Instead of eval: like eval, a Gossip only simulates once until reset
+    public List<GossipQuery.Answer> query(GossipQuery... queries) {
+        if(result != null || this.queries != null) {
+            throw new IllegalStateException("Already eval'ed or queried, reset first");
+        }
+        if(queries.length == 0) {
+            throw new IllegalArgumentException("No queries");
+        }
+        for(GossipQuery query : queries) {
+            query.check(layout.drivers);
+        }
+        this.queries = queries.clone();
+        this.answers = new int[queries.length];
+        Arrays.fill(answers, -1);
+        run();
+        List<GossipQuery.Answer> answered = new ArrayList<>(queries.length);
+        for(int q = 0; q < queries.length; ++q) {
+            answered.add(new GossipQuery.Answer(queries[q], answers[q]));
+        }
+        return answered;
+    }
+
+    // simulates once, with tracing, debug output and metrics as set
+    private String run() {
+        String outcome;
+        if(traceStream != null) {
+            trace = new TraceRecorder(traceStream, routes(), rule, currentGossip);
+        }
+        if(isDebug) {
+            debugTicks = new TickPublisher(Runnable::run, 1).setPolicy(TickPublisher.Policy.BLOCK);
+            debugTicks.subscribe(new TextTickSubscriber(System.out));
+        }
+        isCounting = metrics != null;
+        if(isCounting) {
+            tickCount = 0;
+            meetingCount = 0;
+            bitsTransferred = 0;
+            Arrays.fill(occupancy, 0);
+            metrics.begin();
+        }
+        long[] nanos = isCounting ? new long[3] : null; // exchange, check, move of the sampled ticks
+        sampledTicks = 0;
+        try {
+            outcome = simulate(nanos);
+            if(trace != null) {
+                trace.finish(finalTick, outcome);
+            }
+        } finally {
+            trace = null;
+            if(debugTicks != null) {
+                debugTicks.close();
+                debugTicks = null;
+            }
+            if(isCounting) {
+                // estimate the phase times of all ticks from the sampled ones
+                for(int p = 0; p < nanos.length && sampledTicks > 0; ++p) {
+                    nanos[p] = (long) (nanos[p] * (double) tickCount / sampledTicks);
                 }
-                if(isDebug) {
-                    logState();
+                metrics.end(tickCount, meetingCount, bitsTransferred, occupancy, nanos[0], nanos[1], nanos[2]);
+            }
+        }
+        return outcome;
+    }
+
+    // result of the evaluation, or null if not eval'ed yet
+    public String getResult() {
+        return result;
+    }
+
+    // minute at which the result was decided, or -1 if not eval'ed yet
+    public int getFinalTick() {
+        return finalTick;
+    }
+
+    // when each driver learned each gossip, null if not eval'ed yet or not recorded (see setRecordArrivals)
+    public GossipArrivals getArrivals() {
+        return arrivals;
+    }
+
+    // true if every driver ever shares a stop, directly or via other drivers, with every other driver
+    public boolean isConnected() {
+        return getGraph().isConnected();
+    }
+
+    // the result can't be smaller than this, Integer.MAX_VALUE if it is "never" for any horizon
+    public int getLowerBound() {
+        return isConnected() ? Math.max(1, getGraph().diameterLowerBound()) : Integer.MAX_VALUE;
+    }
+
+    // the routes, rebuilt from the layout when this instance was reset from a route table
+    private int[][] routes() {
+        if(routes == null) {
+            routes = layout.toArray();
+        }
+        return routes;
+    }
+
+    private StopGraph getGraph() {
+        if(graph == null) {
+            graph = new StopGraph(layout);
+        }
+        return graph;
+    }
+
+    // nanos, when not null, accumulates the time in the exchange, check and move phases
+    private String simulate(long[] nanos) {
+        allGossip = new long[words];
+        GossipBits.union(currentGossip, layout.drivers, allGossip);
+        if(isRecordArrivals) {
+            arrivals = new GossipArrivals(layout.drivers, horizon, currentGossip, allGossip);
+        }
+        isRecording = trace != null || arrivals != null;
+        if(isRecording) {
+            groupRow = new long[words];
+            groupMembers = new int[layout.drivers];
+        }
+        final boolean stayWhileGossiping = rule == GossipRule.STAY_WHILE_GOSSIPING;
+        if(stayWhileGossiping && schedule != null) {
+            throw new IllegalStateException("A schedule only applies to the standard rule");
+        }
+        // largest result that can be reported
+        final long lastResult = stayWhileGossiping ? horizon : horizon + 1L;
+        if(queries != null) {
+            pendingQueries = queries.length;
+            if(stayWhileGossiping && answerQueries(0)) {
+                finalTick = 0;
+                return "answered";
+            }
+        } else if(stayWhileGossiping && GossipBits.allKnow(currentGossip, layout.drivers, allGossip)) {
+            finalTick = 0; // no minute has to pass
+            return "0";
+        }
+        // answer impossible inputs without simulating. The graph checks assume each driver starts with its own gossip.
+        // Queries can hold before the diameter lower bound, but none of them on a disconnected graph
+        final int lowerBound;
+        if(isCustomGossip) {
+            lowerBound = 1;
+        } else if(queries != null) {
+            lowerBound = isConnected() ? 1 : Integer.MAX_VALUE;
+        } else {
+            lowerBound = getLowerBound();
+        }
+        if(lowerBound > lastResult) {
+            finalTick = 0;
+            return "never";
+        }
+        if(schedule == null && 0 < scheduleBound && !stayWhileGossiping) {
+            schedule = MeetingSchedule.compile(routes(), layout, scheduleBound);
+        }
+        // under the bonus rule a whole period without gossip means everybody moved all the time, so it repeats as well
+        final long period = schedule != null ? schedule.period() : RouteMath.period(layout.lengths, horizon);
+        final int[] lengths = layout.lengths;
+        int lastChange = -1; // last minute somebody learned something new
+        // loop until all gossip is disseminated, until nothing can change any more, or until we reach the horizon
+        long time = 0;
+        for(mins = 0; ; ++mins) {
+            // phases are timed on one tick in PHASE_SAMPLE only, reading the clock every tick would cost more than the
+            // tick itself for small scenarios
+            final boolean timed = nanos != null && (mins & PHASE_SAMPLE - 1) == 0;
+            if(timed) {
+                time = System.nanoTime();
+                ++sampledTicks;
+            }
+            if(trace != null) {
+                trace.begin(mins);
+            }
+            if(schedule != null ? exchangeScheduled((int) (mins % period)) : exchangeGossip(stayWhileGossiping)) {
+                lastChange = mins;
+            }
+            if(nanos != null) {
+                ++tickCount;
+            }
+            if(timed) {
+                time = lap(nanos, 0, time);
+            }
+            if(trace != null) {
+                trace.end(stayers, stayerCount);
+            }
+            if(arrivals != null) {
+                arrivals.end();
+            }
+            finalTick = mins;
+            if(timed && (trace != null || arrivals != null)) {
+                time = System.nanoTime(); // recording isn't a phase
+            }
+            // evaluate completion criteria
+            String decided = null;
+            if(queries != null) {
+                if(mins + 1 <= lastResult && answerQueries(mins + 1)) {
+                    decided = "answered";
+                }
+            } else if(mins + 1 >= lowerBound && mins + 1 <= lastResult
+                    && GossipBits.allKnow(currentGossip, layout.drivers, allGossip)) {
+                decided = (mins + 1) + "";
+            }
+            if(decided == null && (0 < period && mins - lastChange >= period || mins == horizon)) {
+                // a whole period without news: every future minute repeats one we've already seen
+                decided = "never";
+            }
+            if(timed) {
+                time = lap(nanos, 1, time);
+            }
+            if(tickPublisher != null || debugTicks != null) {
+                publishTick(decided != null);
+                if(timed) {
+                    time = System.nanoTime(); // neither are observers
                 }
-                // evaluate completion criteria
-                if(IntStream.of(currentGossip).allMatch(g -> g == allGossip)) {
-                    result = (mins + 1) + "";
-                    break;
+            }
+            if(decided != null) {
+                return decided;
+            }
+            // move all drivers (a schedule knows where they are), then take the stayers back
+            if(schedule == null) {
+                for(int i = 0; i < layout.drivers; ++i) {
+                    if(++currentLocation[i] == lengths[i]) {
+                        currentLocation[i] = 0;
+                    }
                 }
-                // move all drivers
-                for(int i = 0; i < routes.length; ++i) {
-                    currentLocation[i] = ++currentLocation[i] % routes[i].length;
+                for(int k = 0; k < stayerCount; ++k) {
+                    int i = stayers[k];
+                    currentLocation[i] = (currentLocation[i] == 0 ? lengths[i] : currentLocation[i]) - 1;
                 }
             }
-            if(result == null) {
-                result = "never";
+            if(timed) {
+                lap(nanos, 2, time);
             }
         }
-        return result;
     }
 
-    // logs the time, gossip-set, route, and current location for each driver
-    void logState() {
-        System.out.println("t = "+ mins);
-        for(int i=0; i<routes.length; ++i) {
-            System.out.print(i);
-            System.out.print("\t[");
-            for(int j=0; j<currentGossip.length; ++j) {
-                System.out.print((currentGossip[i] & 1<<j)>>j);
-            }
-            System.out.print("]");
-            for(int j=0; j<routes[i].length; ++j) {
-                System.out.print("\t");
-                System.out.print(routes[i][j]);
-                if(j == currentLocation[i]) {
-                    System.out.print("*"); // current_loc stop
+    // answers the pending queries that hold now, after this many minutes. Returns true once all are answered
+    private boolean answerQueries(int minutes) {
+        for(int q = 0; q < queries.length; ++q) {
+            if(answers[q] == -1 && queries[q].holds(currentGossip, layout.drivers, words, allGossip)) {
+                answers[q] = minutes;
+                --pendingQueries;
+            }
+        }
+        return pendingQueries == 0;
+    }
+
+    // adds the time since 'since' to the phase, returns now
+    private static long lap(long[] nanos, int phase, long since) {
+        long now = System.nanoTime();
+        nanos[phase] += now - since;
+        return now;
+    }
+
+    // applies the precompiled meeting groups of the phase. Returns true if any driver learned something new
+    private boolean exchangeScheduled(int phase) {
+        boolean changed = false;
+        final int[] groupStart = schedule.groupStart();
+        final int[] members = schedule.members();
+        for(int g = schedule.phaseStart()[phase]; g < schedule.phaseStart()[phase + 1]; ++g) {
+            int head = members[groupStart[g]];
+            if(isRecording) {
+                System.arraycopy(currentGossip, head * words, groupRow, 0, words);
+            }
+            int headKnew = 0;
+            if(isCounting) {
+                ++meetingCount;
+                ++occupancy[GossipMetrics.bucket(groupStart[g + 1] - groupStart[g])];
+                headKnew = GossipBits.count(currentGossip, head, words);
+            }
+            boolean groupChanged = false;
+            for(int k = groupStart[g] + 1; k < groupStart[g + 1]; ++k) {
+                groupChanged |= !GossipBits.same(currentGossip, head, members[k], words);
+                GossipBits.or(currentGossip, head, members[k], words);
+            }
+            if(!groupChanged) {
+                continue; // everybody at this stop knows the same already
+            }
+            changed = true;
+            if(isRecording) {
+                recordGroup(members, groupStart[g], groupStart[g + 1]);
+            }
+            if(isCounting) {
+                int knows = GossipBits.count(currentGossip, head, words);
+                bitsTransferred += knows - headKnew;
+                for(int k = groupStart[g] + 1; k < groupStart[g + 1]; ++k) {
+                    bitsTransferred += knows - GossipBits.count(currentGossip, members[k], words);
+                }
+            }
+            for(int k = groupStart[g] + 1; k < groupStart[g + 1]; ++k) {
+                GossipBits.copy(currentGossip, members[k], head, words);
+            }
+        }
+        return changed;
+    }
+
+    // groups the drivers by their current stop, then gives every driver in a group the union of the group's gossip.
+    // Linear in the number of drivers, and independent of the order in which drivers are visited.
+    // With stayWhileGossiping, the drivers of groups where somebody learned something are listed in stayers.
+    // Returns true if any driver learned something new
+    private boolean exchangeGossip(boolean stayWhileGossiping) {
+        boolean changed = false;
+        stayerCount = 0;
+        final int[] stops = layout.stops;
+        final int[] offsets = layout.offsets;
+        int touched = 0;
+        for(int i = layout.drivers - 1; i >= 0; --i) {
+            int stop = stops[offsets[i] + currentLocation[i]];
+            if(stopHead[stop] == -1) {
+                touchedStops[touched++] = stop;
+            }
+            nextAtStop[i] = stopHead[stop];
+            stopHead[stop] = i;
+        }
+        for(int k = 0; k < touched; ++k) {
+            int head = stopHead[touchedStops[k]];
+            stopHead[touchedStops[k]] = -1; // leave the buckets empty for the next minute
+            if(nextAtStop[head] == -1) {
+                if(isCounting) {
+                    ++occupancy[0];
+                }
+                continue; // driver is alone at this stop
+            }
+            // merge into the head of the group, then copy the head back to the rest of the group
+            if(isRecording) {
+                System.arraycopy(currentGossip, head * words, groupRow, 0, words);
+            }
+            int headKnew = isCounting ? GossipBits.count(currentGossip, head, words) : 0;
+            int size = 1;
+            boolean groupChanged = false;
+            for(int i = nextAtStop[head]; i != -1; i = nextAtStop[i]) {
+                groupChanged |= !GossipBits.same(currentGossip, head, i, words);
+                GossipBits.or(currentGossip, head, i, words);
+                ++size;
+            }
+            if(isCounting) {
+                ++meetingCount;
+                ++occupancy[GossipMetrics.bucket(size)];
+            }
+            if(!groupChanged) {
+                continue; // everybody at this stop knows the same already
+            }
+            changed = true;
+            if(isRecording) {
+                int count = 0;
+                for(int i = head; i != -1; i = nextAtStop[i]) {
+                    groupMembers[count++] = i;
+                }
+                recordGroup(groupMembers, 0, count);
+            }
+            if(isCounting) {
+                int knows = GossipBits.count(currentGossip, head, words);
+                bitsTransferred += knows - headKnew;
+                for(int i = nextAtStop[head]; i != -1; i = nextAtStop[i]) {
+                    bitsTransferred += knows - GossipBits.count(currentGossip, i, words);
+                }
+            }
+            for(int i = nextAtStop[head]; i != -1; i = nextAtStop[i]) {
+                GossipBits.copy(currentGossip, i, head, words);
+            }
+            if(stayWhileGossiping) {
+                for(int i = head; i != -1; i = nextAtStop[i]) {
+                    stayers[stayerCount++] = i;
                 }
             }
-            System.out.println();
         }
+        return changed;
     }
 
+    // records a changed group after merging into its head members[from], before copying back to the other members
+    private void recordGroup(int[] members, int from, int to) {
+        if(trace != null) {
+            trace.group(currentGossip, groupRow, members, from, to);
+        }
+        if(arrivals != null) {
+            arrivals.group(currentGossip, groupRow, members, from, to, mins);
+        }
+    }
+
+    // publishes the current minute to the publishers that want it, taking the tick only if one does
+    private void publishTick(boolean last) {
+        boolean user = tickPublisher != null && tickPublisher.wants(mins, last);
+        if(!user && debugTicks == null) {
+            return;
+        }
+        GossipTick tick = takeTick();
+        if(user) {
+            tickPublisher.publish(tick);
+        }
+        if(debugTicks != null) {
+            debugTicks.publish(tick);
+        }
+    }
+
+    // copies the time, gossip-sets, and current location of each driver (and whether it stays put gossiping)
+    private GossipTick takeTick() {
+        int[] location = new int[layout.drivers];
+        for(int i = 0; i < layout.drivers; ++i) {
+            location[i] = schedule != null ? mins % layout.lengths[i] : currentLocation[i];
+        }
+        boolean[] staying = new boolean[layout.drivers];
+        for(int k = 0; k < stayerCount; ++k) {
+            staying[stayers[k]] = true;
+        }
+        return new GossipTick(mins, routes(), location, staying, Arrays.copyOf(currentGossip, layout.drivers * words));
+    }
+
+    // appends a driver's line of the debug output: gossip-set, route, and current location. Shared with TraceReplay
+    static void appendDriver(StringBuilder s, int[][] routes, long[] gossip, int driver, int location, boolean staying) {
+        final int words = GossipBits.words(routes.length);
+        s.append(driver).append("\t[");
+        for(int j=0; j<routes.length; ++j) {
+            s.append(GossipBits.get(gossip, driver, words, j));
+        }
+        s.append("]");
+        for(int j=0; j<routes[driver].length; ++j) {
+            s.append("\t").append(routes[driver][j]);
+            if(j == location) {
+                s.append(staying ? "+" : "*"); // current_loc stop
+            }
+        }
+        s.append(System.lineSeparator());
+    }
+
+    // prints every minute to System.out, through a TextTickSubscriber running on the simulation's thread
     public Gossip setDebug(boolean isDebug) {
         this.isDebug = isDebug;
         return this;
     }
+
+    // the driver starts out knowing exactly the given gossips (instead of its own). Everybody has to learn the
+    // gossips that somebody knows at the start
+    public Gossip setInitialGossip(int driver, int... gossips) {
+        if(result != null) {
+            throw new IllegalStateException("Already eval'ed");
+        }
+        if(driver < 0 || driver >= layout.drivers) {
+            throw new IllegalArgumentException("Invalid driver: "+driver);
+        }
+        for(int gossip : gossips) {
+            if(gossip < 0 || gossip >= layout.drivers) {
+                throw new IllegalArgumentException("Invalid gossip: "+gossip);
+            }
+        }
+        GossipBits.clear(currentGossip, driver, words);
+        for(int gossip : gossips) {
+            GossipBits.set(currentGossip, driver, words, gossip);
+        }
+        isCustomGossip = true;
+        return this;
+    }
+
+    // uses the precompiled meeting groups of the schedule instead of stepping the drivers.
+    // The schedule has to be compiled from the same routes, or from a copy of them
+    public Gossip setSchedule(MeetingSchedule schedule) {
+        if(schedule != null && schedule.routes() != routes && !layout.matches(schedule.routes())) {
+            throw new IllegalArgumentException("Schedule was compiled for other routes");
+        }
+        this.schedule = schedule;
+        return this;
+    }
+
+    // compiles a MeetingSchedule when the period of the routes is at most this many minutes, 0 to never compile one
+    public Gossip setScheduleBound(int scheduleBound) {
+        if(scheduleBound < 0) {
+            throw new IllegalArgumentException("Invalid schedule bound: "+scheduleBound);
+        }
+        this.scheduleBound = scheduleBound;
+        return this;
+    }
+
+    // how drivers move after exchanging gossip, GossipRule.STANDARD by default
+    public Gossip setRule(GossipRule rule) {
+        this.rule = Objects.requireNonNull(rule, "Illegal rule");
+        return this;
+    }
+
+    // last minute to simulate before giving up with "never"
+    public Gossip setHorizon(int horizon) {
+        if(horizon < 0) {
+            throw new IllegalArgumentException("Invalid horizon: "+horizon);
+        }
+        this.horizon = horizon;
+        return this;
+    }
+
+    // records a binary trace of the evaluation to the stream (left open), null to stop tracing
+    public Gossip setTraceStream(OutputStream traceStream) {
+        this.traceStream = traceStream;
+        return this;
+    }
+
+    // records arrival times and the informed series while evaluating, see getArrivals. Takes drivers^2 shorts
+    public Gossip setRecordArrivals(boolean isRecordArrivals) {
+        this.isRecordArrivals = isRecordArrivals;
+        return this;
+    }
+
+    // publishes the ticks of every evaluation (see TickPublisher), null for none. Can be shared by threads
+    public Gossip setTickPublisher(TickPublisher tickPublisher) {
+        this.tickPublisher = tickPublisher;
+        return this;
+    }
+
+    // counts of every evaluation are added to the metrics, null to count nothing. Metrics can be shared by threads
+    public Gossip setMetrics(GossipMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    public Gossip setOutputWriter(PrintWriter outputWriter) {
+        this.outputWriter = outputWriter;
+        return this;
+    }
 }
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import java.util.Arrays;
+
+/*
+ * When each driver learned each gossip, and how many (driver, gossip) pairs were known at each minute, filled by
+ * Gossip in the same pass that computes the result (see Gossip.setRecordArrivals).
+ *
+ * Minutes are on the scale of the result: gossip known from the start arrived at minute 0, gossip learned at the
+ * stop of minute m arrived at minute m+1, so the last arrival is the result. Arrivals sit in one flat row-major
+ * matrix, short[] when the horizon allows (2 bytes per pair: 4000 drivers take 32 MB), int[] otherwise.
+ *
+ * Notes:
+ *   Not threadsafe
+ */
+public final class GossipArrivals {
+
+    public static final int NEVER = -1;
+
+    private final int drivers;
+    private final short[] shortArrivals; // one of the two is null
+    private final int[] intArrivals;
+    private final long total;            // pairs that have to be known: drivers * gossips somebody knows
+    private int[] informed = new int[64]; // known pairs at each minute
+    private int minutes = 0;
+    private int known = 0;               // known pairs at the current minute
+
+    GossipArrivals(int drivers, int horizon, long[] gossip, long[] allGossip) {
+        long pairs = (long) drivers * drivers;
+        if(pairs > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many drivers for an arrival matrix: "+drivers);
+        }
+        this.drivers = drivers;
+        if(horizon < Short.MAX_VALUE) {
+            shortArrivals = new short[(int) pairs];
+            Arrays.fill(shortArrivals, (short) NEVER);
+            intArrivals = null;
+        } else {
+            intArrivals = new int[(int) pairs];
+            Arrays.fill(intArrivals, NEVER);
+            shortArrivals = null;
+        }
+        long gossips = 0;
+        for(long word : allGossip) {
+            gossips += Long.bitCount(word);
+        }
+        this.total = drivers * gossips;
+        // what everybody knows at the start arrived at minute 0
+        final int words = GossipBits.words(drivers);
+        for(int i = 0; i < drivers; ++i) {
+            for(int w = 0; w < words; ++w) {
+                arrived(i, w, gossip[i * words + w], 0);
+            }
+        }
+        end();
+    }
+
+    // records a group after merging at the given minute: members[from] is the head holding the merged gossip, the
+    // others (and headBefore, the head's row before merging) still hold what they knew before
+    void group(long[] gossip, long[] headBefore, int[] members, int from, int to, int minute) {
+        final int words = GossipBits.words(drivers);
+        final int head = members[from] * words;
+        for(int w = 0; w < words; ++w) {
+            arrived(members[from], w, gossip[head + w] & ~headBefore[w], minute + 1);
+        }
+        for(int k = from + 1; k < to; ++k) {
+            final int row = members[k] * words;
+            for(int w = 0; w < words; ++w) {
+                arrived(members[k], w, gossip[head + w] & ~gossip[row + w], minute + 1);
+            }
+        }
+    }
+
+    // the driver learned the gossips of the bits of word w
+    private void arrived(int driver, int w, long bits, int minute) {
+        known += Long.bitCount(bits);
+        final int row = driver * drivers + (w << 6);
+        while(bits != 0) {
+            int index = row + Long.numberOfTrailingZeros(bits);
+            if(shortArrivals != null) {
+                shortArrivals[index] = (short) minute;
+            } else {
+                intArrivals[index] = minute;
+            }
+            bits &= bits - 1;
+        }
+    }
+
+    // ends a minute
+    void end() {
+        if(minutes == informed.length) {
+            informed = Arrays.copyOf(informed, minutes * 2);
+        }
+        informed[minutes++] = known;
+    }
+
+    public int drivers() {
+        return drivers;
+    }
+
+    // minute at which the driver learned the gossip, NEVER if it didn't
+    public int arrival(int driver, int gossip) {
+        int index = driver * drivers + gossip;
+        return shortArrivals != null ? shortArrivals[index] : intArrivals[index];
+    }
+
+    // number of (driver, gossip) pairs that have to be known for everybody to know everything
+    public long totalPairs() {
+        return total;
+    }
+
+    // number of minutes in the informed series: minutes 0 .. minutes()-1
+    public int minutes() {
+        return minutes;
+    }
+
+    // number of (driver, gossip) pairs known at the minute. Nothing changes after the last recorded minute
+    public int informed(int minute) {
+        if(minute < 0) {
+            throw new IllegalArgumentException("Invalid minute: "+minute);
+        }
+        return informed[Math.min(minute, minutes - 1)];
+    }
+
+    // fraction of the pairs to be known that are known at the minute
+    public double informedFraction(int minute) {
+        return total == 0 ? 1.0 : (double) informed(minute) / total;
+    }
+
+    // first minute at which at least the fraction (0..1) of all pairs to be known is known, NEVER if none
+    public int minuteInformed(double fraction) {
+        if(fraction < 0 || fraction > 1) {
+            throw new IllegalArgumentException("Invalid fraction: "+fraction);
+        }
+        long needed = (long) Math.ceil(fraction * total);
+        for(int m = 0; m < minutes; ++m) {
+            if(informed[m] >= needed) {
+                return m;
+            }
+        }
+        return NEVER;
+    }
+}
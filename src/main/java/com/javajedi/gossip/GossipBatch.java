@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+ * Evaluates many scenarios in one JVM, in parallel on a work-stealing ForkJoinPool.
+ *
+ * Input is either a file holding many scenarios separated by empty lines, or a directory holding one scenario per
+ * file (in file name order). Each scenario uses the same text format as GossipRunner -f.
+ *
+ * Results are streamed out in input order, one line per scenario: name, result and evaluation time in microseconds,
+ * separated by tabs. Gossip is not threadsafe, so each worker thread evaluates with its own Gossip instance, reset
+ * for every scenario it picks up. All of them count into the same GossipMetrics, if set.
+ */
+public class GossipBatch {
+
+    private final int parallelism;
+    private final int window;        // max scenarios parsed but not written yet
+    private ForkJoinPool pool;
+    private int horizon = Gossip.DEFAULT_HORIZON;
+    private GossipMetrics metrics = null;
+    private final ThreadLocal<Gossip> workerGossip = ThreadLocal.withInitial(
+            () -> new Gossip(new int[][] {{0}}).setHorizon(horizon).setMetrics(metrics));
+
+    public GossipBatch(int parallelism) {
+        if(parallelism < 1) {
+            throw new IllegalArgumentException("Invalid parallelism: "+parallelism);
+        }
+        this.parallelism = parallelism;
+        this.window = parallelism * 8;
+    }
+
+    public GossipBatch setHorizon(int horizon) {
+        if(horizon < 0) {
+            throw new IllegalArgumentException("Invalid horizon: "+horizon);
+        }
+        this.horizon = horizon;
+        return this;
+    }
+
+    // counters of the simulations, null for none. Set before run
+    public GossipBatch setMetrics(GossipMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    // evaluates all scenarios of the file or directory, writing one result line per scenario. Returns the count
+    public int run(Path input, PrintStream out) throws IOException {
+        pool = new ForkJoinPool(parallelism);
+        try {
+            if(Files.isDirectory(input)) {
+                List<Path> files;
+                try(Stream<Path> list = Files.list(input)) {
+                    files = list.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+                }
+                Deque<ForkJoinTask<String>> pending = new ArrayDeque<>();
+                for(Path file : files) {
+                    // workers load the files themselves
+                    submit(file.getFileName().toString(), () -> RouteLoader.load(file), pending, out);
+                }
+                drain(pending, out, 0);
+                return files.size();
+            }
+            return runFile(input, out);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // splits the file into scenarios at empty lines
+    private int runFile(Path input, PrintStream out) throws IOException {
+        Deque<ForkJoinTask<String>> pending = new ArrayDeque<>();
+        int count = 0;
+        try(RouteLoader loader = new RouteLoader(input)) {
+            for(;;) {
+                RouteTable table;
+                try {
+                    table = loader.next();
+                } catch(IllegalArgumentException ex) {
+                    // report the malformed scenario and carry on with the next one
+                    loader.skipScenario();
+                    drain(pending, out, 0);
+                    out.println(input.getFileName() + ":" + loader.getScenarioLine() + "\tError: " + ex.getMessage() + "\t0");
+                    ++count;
+                    continue;
+                }
+                if(table == null) {
+                    break;
+                }
+                submit(input.getFileName() + ":" + loader.getScenarioLine(), () -> table, pending, out);
+                ++count;
+            }
+        }
+        drain(pending, out, 0);
+        return count;
+    }
+
+    // source of a scenario's routes, called on a worker thread
+    private interface Scenario {
+        RouteTable load() throws IOException;
+    }
+
+    // queues the scenario, writing finished results first if too many are pending
+    private void submit(String name, Scenario scenario, Deque<ForkJoinTask<String>> pending, PrintStream out) {
+        drain(pending, out, window - 1);
+        pending.addLast(pool.submit(() -> name + "\t" + evaluate(scenario)));
+    }
+
+    // writes results in input order until at most 'keep' are pending
+    private void drain(Deque<ForkJoinTask<String>> pending, PrintStream out, int keep) {
+        while(pending.size() > keep) {
+            out.println(pending.removeFirst().join());
+        }
+    }
+
+    // runs on a worker thread
+    private String evaluate(Scenario scenario) {
+        try {
+            RouteTable routes = scenario.load();
+            long start = System.nanoTime();
+            String result = workerGossip.get().reset(routes).eval().getResult();
+            long micros = (System.nanoTime() - start) / 1000;
+            return result + "\t" + micros;
+        } catch(Exception ex) {
+            return "Error: " + ex.getMessage() + "\t0";
+        }
+    }
+}
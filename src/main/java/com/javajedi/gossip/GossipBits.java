@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import java.util.Arrays;
+
+/*
+ * Gossip sets of all drivers packed into one flat long[].
+ *
+ * Driver i owns the words [i*words, (i+1)*words), bit g of that row is set when driver i knows gossip g.
+ * All operations work a word at a time and never allocate.
+ */
+final class GossipBits {
+
+    private GossipBits() {}
+
+    // number of words needed for one gossip set of n gossips
+    static int words(int n) {
+        return (n + 63) >>> 6;
+    }
+
+    // gossip sets where each of the n drivers knows only its own gossip
+    static long[] initial(int n) {
+        long[] bits = new long[n * words(n)];
+        reset(bits, n);
+        return bits;
+    }
+
+    // resets the gossip sets so that each of the n drivers knows only its own gossip
+    static void reset(long[] bits, int n) {
+        int words = words(n);
+        Arrays.fill(bits, 0, n * words, 0L);
+        for(int i = 0; i < n; ++i) {
+            bits[i * words + (i >>> 6)] = 1L << i;
+        }
+    }
+
+    // mask of the valid bits in the last word of a gossip set of n gossips
+    static long lastWordMask(int n) {
+        return (n & 63) == 0 ? -1L : (1L << n) - 1;
+    }
+
+    // row 'to' |= row 'from'
+    static void or(long[] bits, int to, int from, int words) {
+        int t = to * words;
+        int f = from * words;
+        for(int w = 0; w < words; ++w) {
+            bits[t + w] |= bits[f + w];
+        }
+    }
+
+    // row 'to' = row 'from'
+    static void copy(long[] bits, int to, int from, int words) {
+        System.arraycopy(bits, from * words, bits, to * words, words);
+    }
+
+    // true if rows a and b hold the same gossip
+    static boolean same(long[] bits, int a, int b, int words) {
+        int x = a * words;
+        int y = b * words;
+        for(int w = 0; w < words; ++w) {
+            if(bits[x + w] != bits[y + w]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // true if the driver knows all n gossips
+    static boolean isComplete(long[] bits, int driver, int n) {
+        int words = words(n);
+        int offset = driver * words;
+        for(int w = 0; w < words - 1; ++w) {
+            if(bits[offset + w] != -1L) {
+                return false;
+            }
+        }
+        return bits[offset + words - 1] == lastWordMask(n);
+    }
+
+    // true if all n drivers know all n gossips
+    static boolean allComplete(long[] bits, int n) {
+        for(int i = 0; i < n; ++i) {
+            if(!isComplete(bits, i, n)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // true if all drivers know exactly the gossip of target (a single gossip set)
+    static boolean allKnow(long[] bits, int drivers, long[] target) {
+        int words = target.length;
+        for(int i = 0; i < drivers; ++i) {
+            int offset = i * words;
+            for(int w = 0; w < words; ++w) {
+                if(bits[offset + w] != target[w]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // target = union of the gossip of all drivers
+    static void union(long[] bits, int drivers, long[] target) {
+        int words = target.length;
+        Arrays.fill(target, 0L);
+        for(int i = 0; i < drivers; ++i) {
+            for(int w = 0; w < words; ++w) {
+                target[w] |= bits[i * words + w];
+            }
+        }
+    }
+
+    // lets the driver know the gossip
+    static void set(long[] bits, int driver, int words, int gossip) {
+        bits[driver * words + (gossip >>> 6)] |= 1L << gossip;
+    }
+
+    // the driver forgets all gossip
+    static void clear(long[] bits, int driver, int words) {
+        Arrays.fill(bits, driver * words, (driver + 1) * words, 0L);
+    }
+
+    // 1 if the driver knows the gossip, 0 otherwise
+    static int get(long[] bits, int driver, int words, int gossip) {
+        return (int) (bits[driver * words + (gossip >>> 6)] >>> gossip) & 1;
+    }
+
+    // number of gossips the driver knows
+    static int count(long[] bits, int driver, int words) {
+        int count = 0;
+        for(int w = driver * words, end = w + words; w < end; ++w) {
+            count += Long.bitCount(bits[w]);
+        }
+        return count;
+    }
+
+    // true if the driver knows every gossip of the target set
+    static boolean knowsAll(long[] bits, int driver, int words, long[] target) {
+        int row = driver * words;
+        for(int w = 0; w < words; ++w) {
+            if((bits[row + w] & target[w]) != target[w]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Counters of the simulation loop of Gossip (and GossipBonus), cheap enough to leave on.
+ *
+ * Gossip counts into plain fields of its own while simulating and adds them here once per evaluation, so the tick
+ * loop never touches shared state. Here every counter is a LongAdder, so concurrent evaluations (GossipBatch, the
+ * service) don't contend either. Read the totals over JMX (register), or take snapshots and diff them to get rates
+ * over an interval.
+ *
+ * Counted:
+ *   scenarios evaluated, and in flight right now
+ *   ticks (simulated minutes)
+ *   meetings: stops with two or more drivers at some minute, and the stop occupancy histogram (singletons included)
+ *   gossip bits transferred: (driver, gossip) pairs learned in meetings
+ *   nanoseconds in the exchange, completion check and move phases, estimated from every 16th tick (reading the clock
+ *   on every tick costs more than a small scenario's tick)
+ *
+ * Notes:
+ *   A schedule (setScheduleBound) only knows its meetings, so its singletons don't show in the histogram
+ */
+public final class GossipMetrics implements GossipMetricsMBean {
+
+    public static final String OBJECT_NAME = "com.javajedi.gossip:type=GossipMetrics";
+    static final int BUCKETS = 32; // occupancy bucket b: 2^b .. 2^(b+1)-1 drivers
+
+    private final LongAdder scenarios = new LongAdder();
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder meetings = new LongAdder();
+    private final LongAdder bitsTransferred = new LongAdder();
+    private final LongAdder[] occupancy = new LongAdder[BUCKETS];
+    private final LongAdder exchangeNanos = new LongAdder();
+    private final LongAdder checkNanos = new LongAdder();
+    private final LongAdder moveNanos = new LongAdder();
+
+    public GossipMetrics() {
+        for(int b = 0; b < BUCKETS; ++b) {
+            occupancy[b] = new LongAdder();
+        }
+    }
+
+    // registers these metrics with the platform MBean server under OBJECT_NAME (replacing what is registered there)
+    public GossipMetrics register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if(server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+            return this;
+        } catch(JMException ex) {
+            throw new IllegalStateException("cannot register " + OBJECT_NAME + ": " + ex.getMessage(), ex);
+        }
+    }
+
+    // a scenario starts evaluating
+    void begin() {
+        inFlight.increment();
+    }
+
+    // a scenario is done: adds the counts of its evaluation (occupancy indexed by bucket)
+    void end(long ticks, long meetings, long bitsTransferred, long[] occupancy,
+             long exchangeNanos, long checkNanos, long moveNanos) {
+        inFlight.decrement();
+        scenarios.increment();
+        this.ticks.add(ticks);
+        this.meetings.add(meetings);
+        this.bitsTransferred.add(bitsTransferred);
+        for(int b = 0; b < BUCKETS; ++b) {
+            if(occupancy[b] != 0) {
+                this.occupancy[b].add(occupancy[b]);
+            }
+        }
+        this.exchangeNanos.add(exchangeNanos);
+        this.checkNanos.add(checkNanos);
+        this.moveNanos.add(moveNanos);
+    }
+
+    // bucket of the occupancy histogram for a stop with this many drivers
+    static int bucket(int drivers) {
+        return 31 - Integer.numberOfLeadingZeros(drivers);
+    }
+
+    // totals right now
+    public Snapshot snapshot() {
+        long[] histogram = new long[BUCKETS];
+        for(int b = 0; b < BUCKETS; ++b) {
+            histogram[b] = occupancy[b].sum();
+        }
+        return new Snapshot(System.nanoTime(), scenarios.sum(), inFlight.sum(), ticks.sum(), meetings.sum(),
+                bitsTransferred.sum(), histogram, exchangeNanos.sum(), checkNanos.sum(), moveNanos.sum());
+    }
+
+    @Override
+    public long getScenarios() {
+        return scenarios.sum();
+    }
+
+    @Override
+    public long getScenariosInFlight() {
+        return inFlight.sum();
+    }
+
+    @Override
+    public long getTicks() {
+        return ticks.sum();
+    }
+
+    @Override
+    public double getTicksPerSecond() {
+        return snapshot().getTicksPerSecond();
+    }
+
+    @Override
+    public long getMeetings() {
+        return meetings.sum();
+    }
+
+    @Override
+    public double getMeetingsPerTick() {
+        return snapshot().getMeetingsPerTick();
+    }
+
+    @Override
+    public long getGossipBitsTransferred() {
+        return bitsTransferred.sum();
+    }
+
+    @Override
+    public long[] getOccupancyHistogram() {
+        return snapshot().getOccupancyHistogram();
+    }
+
+    @Override
+    public double getExchangeMillis() {
+        return exchangeNanos.sum() / 1e6;
+    }
+
+    @Override
+    public double getCheckMillis() {
+        return checkNanos.sum() / 1e6;
+    }
+
+    @Override
+    public double getMoveMillis() {
+        return moveNanos.sum() / 1e6;
+    }
+
+    // zeroes the totals. Evaluations in flight still add their counts when they end
+    @Override
+    public void reset() {
+        scenarios.reset();
+        ticks.reset();
+        meetings.reset();
+        bitsTransferred.reset();
+        for(LongAdder bucket : occupancy) {
+            bucket.reset();
+        }
+        exchangeNanos.reset();
+        checkNanos.reset();
+        moveNanos.reset();
+    }
+
+    /*
+     * Totals at one moment. since(earlier) gives the counts of the interval between two snapshots.
+     */
+    public static final class Snapshot {
+
+        private final long nanoTime;
+        private final long scenarios;
+        private final long inFlight;
+        private final long ticks;
+        private final long meetings;
+        private final long bitsTransferred;
+        private final long[] occupancy;
+        private final long exchangeNanos;
+        private final long checkNanos;
+        private final long moveNanos;
+
+        Snapshot(long nanoTime, long scenarios, long inFlight, long ticks, long meetings, long bitsTransferred,
+                 long[] occupancy, long exchangeNanos, long checkNanos, long moveNanos) {
+            this.nanoTime = nanoTime;
+            this.scenarios = scenarios;
+            this.inFlight = inFlight;
+            this.ticks = ticks;
+            this.meetings = meetings;
+            this.bitsTransferred = bitsTransferred;
+            this.occupancy = occupancy;
+            this.exchangeNanos = exchangeNanos;
+            this.checkNanos = checkNanos;
+            this.moveNanos = moveNanos;
+        }
+
+        // counts between the earlier snapshot and this one (in flight is this one's)
+        public Snapshot since(Snapshot earlier) {
+            long[] histogram = new long[BUCKETS];
+            for(int b = 0; b < BUCKETS; ++b) {
+                histogram[b] = occupancy[b] - earlier.occupancy[b];
+            }
+            return new Snapshot(nanoTime - earlier.nanoTime, scenarios - earlier.scenarios, inFlight,
+                    ticks - earlier.ticks, meetings - earlier.meetings, bitsTransferred - earlier.bitsTransferred,
+                    histogram, exchangeNanos - earlier.exchangeNanos, checkNanos - earlier.checkNanos,
+                    moveNanos - earlier.moveNanos);
+        }
+
+        public long getScenarios() {
+            return scenarios;
+        }
+
+        public long getScenariosInFlight() {
+            return inFlight;
+        }
+
+        public long getTicks() {
+            return ticks;
+        }
+
+        public double getTicksPerSecond() {
+            long nanos = exchangeNanos + checkNanos + moveNanos;
+            return nanos == 0 ? 0 : ticks * 1e9 / nanos;
+        }
+
+        public long getMeetings() {
+            return meetings;
+        }
+
+        public double getMeetingsPerTick() {
+            return ticks == 0 ? 0 : (double) meetings / ticks;
+        }
+
+        public long getGossipBitsTransferred() {
+            return bitsTransferred;
+        }
+
+        public long[] getOccupancyHistogram() {
+            return occupancy.clone();
+        }
+
+        public long getExchangeNanos() {
+            return exchangeNanos;
+        }
+
+        public long getCheckNanos() {
+            return checkNanos;
+        }
+
+        public long getMoveNanos() {
+            return moveNanos;
+        }
+
+        // one line, e.g. for a periodic log
+        @Override
+        public String toString() {
+            StringBuilder s = new StringBuilder();
+            s.append("scenarios ").append(scenarios).append(" (").append(inFlight).append(" in flight)")
+                    .append(", ticks ").append(ticks).append(String.format(" (%.0f/s)", getTicksPerSecond()))
+                    .append(String.format(", meetings/tick %.2f", getMeetingsPerTick()))
+                    .append(", bits ").append(bitsTransferred)
+                    .append(String.format(", exchange %.1f ms, check %.1f ms, move %.1f ms",
+                            exchangeNanos / 1e6, checkNanos / 1e6, moveNanos / 1e6))
+                    .append(", occupancy");
+            int last = BUCKETS - 1;
+            while(last > 0 && occupancy[last] == 0) {
+                --last;
+            }
+            for(int b = 0; b <= last; ++b) {
+                s.append(' ').append(1L << b).append(b == 0 ? "" : "+").append(':').append(occupancy[b]);
+            }
+            return s.toString();
+        }
+    }
+}
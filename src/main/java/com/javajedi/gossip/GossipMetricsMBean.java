@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+/*
+ * JMX view of GossipMetrics (see there). Totals since creation or the last reset, times in milliseconds.
+ */
+public interface GossipMetricsMBean {
+
+    long getScenarios();
+
+    long getScenariosInFlight();
+
+    long getTicks();
+
+    // simulated minutes per second of simulation time (exchange, check and move phases)
+    double getTicksPerSecond();
+
+    long getMeetings();
+
+    double getMeetingsPerTick();
+
+    long getGossipBitsTransferred();
+
+    // bucket b: stops occupied by 2^b .. 2^(b+1)-1 drivers at some minute
+    long[] getOccupancyHistogram();
+
+    double getExchangeMillis();
+
+    double getCheckMillis();
+
+    double getMoveMillis();
+
+    void reset();
+}
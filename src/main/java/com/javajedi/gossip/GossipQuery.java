@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+/*
+ * A question about a simulation that can be answered before everybody knows everything, see Gossip.query.
+ *
+ * Queries:
+ *   driverInformed(d): when does driver d know all gossip
+ *   gossipReached(g): when does everybody know gossip g
+ *   anyInformed(k): when do (at least) k drivers know all gossip
+ * "All gossip" is what somebody knows at the start, as for the result of Gossip. Answers are in the same minutes as
+ * Gossip.getResult.
+ */
+public abstract class GossipQuery {
+
+    private GossipQuery() {}
+
+    public static GossipQuery driverInformed(int driver) {
+        return new DriverInformed(driver);
+    }
+
+    public static GossipQuery gossipReached(int gossip) {
+        return new GossipReached(gossip);
+    }
+
+    public static GossipQuery anyInformed(int drivers) {
+        return new AnyInformed(drivers);
+    }
+
+    // throws an IllegalArgumentException if the query doesn't fit a simulation of that many drivers
+    abstract void check(int drivers);
+
+    // true if the answer holds for the gossip sets
+    abstract boolean holds(long[] gossip, int drivers, int words, long[] allGossip);
+
+    private static final class DriverInformed extends GossipQuery {
+
+        private final int driver;
+
+        DriverInformed(int driver) {
+            this.driver = driver;
+        }
+
+        @Override
+        void check(int drivers) {
+            if(driver < 0 || driver >= drivers) {
+                throw new IllegalArgumentException("Invalid driver: "+driver);
+            }
+        }
+
+        @Override
+        boolean holds(long[] gossip, int drivers, int words, long[] allGossip) {
+            return GossipBits.knowsAll(gossip, driver, words, allGossip);
+        }
+
+        @Override
+        public String toString() {
+            return "driver " + driver + " informed";
+        }
+    }
+
+    private static final class GossipReached extends GossipQuery {
+
+        private final int gossip;
+
+        GossipReached(int gossip) {
+            this.gossip = gossip;
+        }
+
+        @Override
+        void check(int drivers) {
+            if(gossip < 0 || gossip >= drivers) {
+                throw new IllegalArgumentException("Invalid gossip: "+gossip);
+            }
+        }
+
+        @Override
+        boolean holds(long[] bits, int drivers, int words, long[] allGossip) {
+            for(int i = 0; i < drivers; ++i) {
+                if(GossipBits.get(bits, i, words, gossip) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "gossip " + gossip + " reached everybody";
+        }
+    }
+
+    private static final class AnyInformed extends GossipQuery {
+
+        private final int count;
+
+        AnyInformed(int count) {
+            this.count = count;
+        }
+
+        @Override
+        void check(int drivers) {
+            if(count < 1 || count > drivers) {
+                throw new IllegalArgumentException("Invalid number of drivers: "+count);
+            }
+        }
+
+        @Override
+        boolean holds(long[] gossip, int drivers, int words, long[] allGossip) {
+            int informed = 0;
+            for(int i = 0; i < drivers && informed < count; ++i) {
+                if(GossipBits.knowsAll(gossip, i, words, allGossip)) {
+                    ++informed;
+                }
+            }
+            return informed == count;
+        }
+
+        @Override
+        public String toString() {
+            return count + " drivers informed";
+        }
+    }
+
+    /*
+     * Answer to a query: the minute it first held, or "never".
+     */
+    public static final class Answer {
+
+        private final GossipQuery query;
+        private final int minutes;
+
+        Answer(GossipQuery query, int minutes) {
+            this.query = query;
+            this.minutes = minutes;
+        }
+
+        public GossipQuery getQuery() {
+            return query;
+        }
+
+        // minutes until the query held, -1 if never (within the horizon)
+        public int getMinutes() {
+            return minutes;
+        }
+
+        public boolean isNever() {
+            return minutes < 0;
+        }
+
+        // the answer as Gossip.getResult would put it: the minutes, or "never"
+        public String getResult() {
+            return minutes < 0 ? "never" : minutes + "";
+        }
+
+        @Override
+        public String toString() {
+            return query + ": " + getResult();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+/*
+ * How drivers move after exchanging gossip. Both rules run in the same Gossip loop.
+ */
+public enum GossipRule {
+
+    // every driver moves on to the next stop every minute. The result is the minute at which the last gossip arrives
+    STANDARD,
+
+    // bonus rules: drivers that are gossiping (learning or telling something new) stay at their stop for another
+    // minute, everybody else moves on. The result is the number of minutes that pass until everybody knows
+    // everything, so a single driver is done after 0 minutes. Results larger than the horizon are "never"
+    STAY_WHILE_GOSSIPING
+}
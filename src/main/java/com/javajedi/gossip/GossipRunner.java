@@ -18,13 +18,15 @@
  */
 package com.javajedi.gossip;
 
+import java.io.BufferedOutputStream;
 import java.io.Console;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Stream;
 
 public class GossipRunner {
 
@@ -97,17 +99,63 @@ public class GossipRunner {
 
     public static void main(String[] args) {
         boolean debug = false;
+        boolean events = false;
+        boolean bonus = false;
+        int threads = 0;
+        String traceFile = null;
+        boolean arrivals = false;
+        int horizon = Gossip.DEFAULT_HORIZON;
         String file = null;
+        String binaryFile = null;
+        String batch = null;
         int routeIndex = -1;
+        boolean leaveOneOut = false;
+        int offsetDriver = -1;
         try {
+            if(args.length > 0 && "convert".equals(args[0])) {
+                convert(args);
+                return;
+            }
+            if(args.length > 0 && "replay".equals(args[0])) {
+                replay(args);
+                return;
+            }
+            if(args.length > 0 && "serve".equals(args[0])) {
+                serve(args);
+                return;
+            }
+            if(args.length > 0 && ("generate".equals(args[0]) || "stress".equals(args[0]))) {
+                generate(args);
+                return;
+            }
             int i = -1;
             while(++i < args.length) {
                 if(args[i].startsWith("-f"))
                     file = args[++i];
+                else if(args[i].startsWith("-b"))
+                    binaryFile = args[++i];
                 else if(args[i].startsWith("-d"))
                     debug = true;
+                else if(args[i].startsWith("-e"))
+                    events = true;
+                else if(args[i].startsWith("-s"))
+                    bonus = true;
+                else if(args[i].startsWith("-p"))
+                    threads = Integer.parseInt(args[++i].trim());
+                else if(args[i].startsWith("-a"))
+                    arrivals = true;
+                else if(args[i].startsWith("-t"))
+                    traceFile = args[++i];
+                else if(args[i].startsWith("-l"))
+                    horizon = Integer.parseInt(args[++i].trim());
+                else if(args[i].startsWith("-m"))
+                    batch = args[++i];
                 else if(args[i].startsWith("-c"))
                     routeIndex = Integer.parseInt(args[++i].trim());
+                else if(args[i].startsWith("-x"))
+                    leaveOneOut = true;
+                else if(args[i].startsWith("-o"))
+                    offsetDriver = Integer.parseInt(args[++i].trim());
                 else if(args[i].startsWith("-?") || args[i].startsWith("-h")) {
                     showHelp();
                     System.exit(0);
@@ -115,26 +163,48 @@ public class GossipRunner {
                 else throw new IllegalArgumentException("unknown argument: "+args[i]);
             }
             // validate arguments
-            if(file != null && routeIndex != -1)
-                throw new IllegalStateException("cannot select both -f and -c options");
+            if((file != null ? 1 : 0) + (binaryFile != null ? 1 : 0) + (routeIndex != -1 ? 1 : 0) > 1)
+                throw new IllegalStateException("cannot select more than one of the -f, -b and -c options");
+            if(debug && events)
+                throw new IllegalStateException("cannot select both -d and -e options");
+            if(bonus && events)
+                throw new IllegalStateException("cannot select both -s and -e options");
+            if(threads != 0 && (debug || events || bonus))
+                throw new IllegalStateException("-p cannot be combined with -d, -e or -s");
+            if(traceFile != null && (events || threads != 0))
+                throw new IllegalStateException("-t cannot be combined with -e or -p");
+            if(arrivals && (events || threads != 0))
+                throw new IllegalStateException("-a cannot be combined with -e or -p");
+            if(leaveOneOut && offsetDriver != -1)
+                throw new IllegalStateException("cannot select both -x and -o options");
+            if((leaveOneOut || offsetDriver != -1) && (debug || events || threads != 0 || traceFile != null || arrivals))
+                throw new IllegalStateException("-x and -o cannot be combined with -d, -e, -p, -t or -a");
+            if(batch != null) {
+                if(file != null || binaryFile != null || routeIndex != -1 || debug || events || bonus || threads != 0 || traceFile != null || arrivals
+                        || leaveOneOut || offsetDriver != -1)
+                    throw new IllegalStateException("-m cannot be combined with other options");
+                // many scenarios at once, on all cores
+                long start = System.nanoTime();
+                GossipMetrics metrics = new GossipMetrics().register();
+                int count = new GossipBatch(Runtime.getRuntime().availableProcessors())
+                        .setHorizon(horizon).setMetrics(metrics).run(Paths.get(batch), System.out);
+                System.err.println(count+" scenarios in "+(System.nanoTime()-start)/1000000+" ms");
+                System.err.println(metrics.snapshot());
+                return;
+            }
 
-            int[][] routes;
+            RouteTable routes;
             if(0 <= routeIndex) {
                 // user selected to use a canned test route
                 if(routeIndex >= CannedRoute.values().length)
                     throw new IllegalArgumentException("bad test index: must be digit [0-"+(CannedRoute.values().length-1)+"]");
-                routes = CannedRoute.values()[routeIndex].route;
+                routes = RouteTable.of(CannedRoute.values()[routeIndex].route);
             } else if(file != null) {
                 // user selected to use a file to load route
-                try(Stream<String> stream = Files.lines(Paths.get(file))) {
-                    routes = stream
-                            .filter(s -> !s.startsWith("#")) // filter comment lines
-                            .map(s -> Arrays.stream(s.split(","))
-                                    .map(String::trim)
-                                    .mapToInt(Integer::parseInt)
-                                    .toArray())
-                            .toArray(int[][]::new);
-                }
+                routes = RouteLoader.load(Paths.get(file));
+            } else if(binaryFile != null) {
+                // user selected to use a binary route file (see convert)
+                routes = RouteFile.read(Paths.get(binaryFile));
             } else {
                 // user is going to enter routes on console
                 Console cons = System.console();
@@ -149,39 +219,227 @@ public class GossipRunner {
                     try {
                         if(line == null || "".equals(line.trim()))
                             break;
-                        manualRoutes.add(Arrays.stream(line.split(","))
-                                .map(String::trim)
-                                .mapToInt(Integer::parseInt)
-                                .toArray());
+                        manualRoutes.add(parseRoute(line));
                         ++line_num;
                     } catch(Exception ex) {
                         cons.writer().println("Error: " + ex.getMessage());
                     }
                 }
-                routes = manualRoutes.toArray(new int [manualRoutes.size()][]);
+                routes = RouteTable.of(manualRoutes.toArray(new int [manualRoutes.size()][]));
             }
             // execute the Gossip and return the result
-            System.out.println(new Gossip(routes).setDebug(debug).getResult());
+            if(leaveOneOut || offsetDriver != -1) {
+                // what-if variants, on all cores
+                GossipSweep sweep = new GossipSweep(routes.toArray(), Runtime.getRuntime().availableProcessors())
+                        .setRule(bonus ? GossipRule.STAY_WHILE_GOSSIPING : GossipRule.STANDARD).setHorizon(horizon);
+                printSweep(sweep.baseline(), leaveOneOut ? sweep.leaveOneOut() : sweep.startOffsets(offsetDriver), leaveOneOut);
+            }
+            else if(events)
+                System.out.println(new EventGossip(routes.toArray()).setHorizon(horizon).eval().getResult());
+            else if(threads != 0)
+                System.out.println(new ParallelGossip(routes.toArray(), threads).setHorizon(horizon).eval().getResult());
+            else {
+                Gossip gossip = Gossip.of(routes).setRule(bonus ? GossipRule.STAY_WHILE_GOSSIPING : GossipRule.STANDARD)
+                        .setHorizon(horizon).setDebug(debug).setRecordArrivals(arrivals);
+                if(traceFile == null)
+                    System.out.println(gossip.eval().getResult());
+                else try(OutputStream trace = new BufferedOutputStream(Files.newOutputStream(Paths.get(traceFile)))) {
+                    System.out.println(gossip.setTraceStream(trace).eval().getResult());
+                }
+                if(arrivals)
+                    printArrivals(gossip.getArrivals());
+            }
         } catch(Exception ex) {
             System.out.println("Error: " + ex.getMessage());
             showHelp();
         }
     }
 
+    // convert [-v] <text_file> <binary_file>
+    private static void convert(String[] args) throws IOException {
+        boolean varint = args.length == 4 && args[1].startsWith("-v");
+        if(args.length != (varint ? 4 : 3))
+            throw new IllegalArgumentException("usage: convert [-v] <text_file> <binary_file>");
+        RouteTable table = RouteLoader.load(Paths.get(args[varint ? 2 : 1]));
+        RouteFile.write(table, Paths.get(args[varint ? 3 : 2]), varint);
+        System.out.println("converted "+table.drivers()+" routes with "+table.totalStops()+" stops");
+    }
+
+    // minutes at which 50, 90 and 99% of all (driver, gossip) pairs were known
+    private static void printArrivals(GossipArrivals arrivals) {
+        StringBuilder s = new StringBuilder("informed");
+        for(int percent : new int[] {50, 90, 99}) {
+            int minute = arrivals.minuteInformed(percent / 100.0);
+            s.append(" ").append(percent).append("%: ").append(minute == GossipArrivals.NEVER ? "never" : minute+"");
+        }
+        System.out.println(s);
+    }
+
+    // ranked table of the variants: rank, variant, result and the change from the baseline, separated by tabs
+    private static void printSweep(String baseline, List<GossipSweep.Variant> variants, boolean leaveOneOut) {
+        System.out.println("baseline\t"+baseline);
+        int rank = 0;
+        for(GossipSweep.Variant variant : variants) {
+            String name = leaveOneOut ? "without driver "+variant.getDriver()
+                    : "driver "+variant.getDriver()+" from stop "+variant.getOffset();
+            String change;
+            if(variant.getResult().equals(baseline))
+                change = "same";
+            else if("never".equals(baseline) || "never".equals(variant.getResult()))
+                change = "never".equals(baseline) ? "completes" : "never completes";
+            else {
+                int delta = Integer.parseInt(variant.getResult()) - Integer.parseInt(baseline);
+                change = (delta > 0 ? "+" : "")+delta;
+            }
+            System.out.println(++rank+"\t"+name+"\t"+variant.getResult()+"\t"+change);
+        }
+    }
+
+    // serve [<port> [<cache_size>]]
+    private static void serve(String[] args) throws IOException {
+        if(args.length > 3)
+            throw new IllegalArgumentException("usage: serve [<port> [<cache_size>]]");
+        int port = args.length > 1 ? Integer.parseInt(args[1].trim()) : GossipService.DEFAULT_PORT;
+        int cacheSize = args.length > 2 ? Integer.parseInt(args[2].trim()) : GossipService.DEFAULT_CACHE_SIZE;
+        GossipService service = new GossipService(port, cacheSize).start();
+        service.getMetrics().register();
+        // the server's threads keep the JVM running
+        System.out.println("listening on http://localhost:"+service.getPort()+"/eval and /stats");
+    }
+
+    // generate [<fleet options>] <filename>|-
+    // stress [<fleet options>] [-s] [-l <minutes>] [-p <threads>]
+    // fleet options: [-n <scenarios>] [-r <seed>] [-d <drivers>] [-g <min>-<max>] [-u <stops>] [-k <hubs> <bias>]
+    private static void generate(String[] args) throws IOException {
+        boolean stress = "stress".equals(args[0]);
+        int scenarios = 1;
+        long seed = 1;
+        boolean bonus = false;
+        int horizon = Gossip.DEFAULT_HORIZON;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String output = null;
+        int drivers = 100, minLength = 4, maxLength = 16, stops = 1000, hubs = 0;
+        double hubBias = 0;
+        for(int i = 1; i < args.length; ++i) {
+            if(args[i].startsWith("-n"))
+                scenarios = Integer.parseInt(args[++i].trim());
+            else if(args[i].startsWith("-r"))
+                seed = Long.parseLong(args[++i].trim());
+            else if(args[i].startsWith("-d"))
+                drivers = Integer.parseInt(args[++i].trim());
+            else if(args[i].startsWith("-g")) {
+                String[] range = args[++i].split("-");
+                minLength = Integer.parseInt(range[0].trim());
+                maxLength = Integer.parseInt(range[range.length - 1].trim());
+            }
+            else if(args[i].startsWith("-u"))
+                stops = Integer.parseInt(args[++i].trim());
+            else if(args[i].startsWith("-k")) {
+                hubs = Integer.parseInt(args[++i].trim());
+                hubBias = Double.parseDouble(args[++i].trim());
+            }
+            else if(stress && args[i].startsWith("-s"))
+                bonus = true;
+            else if(stress && args[i].startsWith("-l"))
+                horizon = Integer.parseInt(args[++i].trim());
+            else if(stress && args[i].startsWith("-p"))
+                threads = Integer.parseInt(args[++i].trim());
+            else if(!stress && output == null && (!args[i].startsWith("-") || "-".equals(args[i])))
+                output = args[i];
+            else
+                throw new IllegalArgumentException("unknown argument: "+args[i]);
+        }
+        FleetGenerator generator = new FleetGenerator(seed).setDrivers(drivers).setLengths(minLength, maxLength).setStops(stops)
+                .setHubs(hubs, hubBias);
+        if(stress) {
+            GossipStress run = new GossipStress(generator, threads)
+                    .setRule(bonus ? GossipRule.STAY_WHILE_GOSSIPING : GossipRule.STANDARD).setHorizon(horizon);
+            run.getMetrics().register();
+            run.run(scenarios, System.out);
+            return;
+        }
+        if(output == null)
+            throw new IllegalArgumentException("usage: generate [<fleet options>] <filename>|-");
+        if("-".equals(output))
+            generator.write(System.out, 0, scenarios);
+        else try(OutputStream out = Files.newOutputStream(Paths.get(output))) {
+            generator.write(out, 0, scenarios);
+        }
+    }
+
+    // replay [-t <minute>] <trace_file>
+    private static void replay(String[] args) throws IOException {
+        boolean seek = args.length == 4 && args[1].startsWith("-t");
+        if(args.length != (seek ? 4 : 2))
+            throw new IllegalArgumentException("usage: replay [-t <minute>] <trace_file>");
+        try(TraceReplay replay = TraceReplay.open(Paths.get(args[seek ? 3 : 1]))) {
+            if(seek) {
+                int minute = Integer.parseInt(args[2].trim());
+                if(!replay.seek(minute))
+                    throw new IllegalArgumentException("trace ends before minute "+minute);
+                System.out.print(replay.render());
+                return;
+            }
+            while(replay.next())
+                System.out.print(replay.render());
+            System.out.println(replay.getResult());
+        }
+    }
+
+    // parses one line of comma-separated stops
+    static int[] parseRoute(String line) {
+        return Arrays.stream(line.split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+    }
+
     public static void showHelp() {
-        System.out.println("usage: GossipRunner [-d] -f <filename>");
-        System.out.println("       GossipRunner [-d] -c <test_index>");
-        System.out.println("       GossipRunner [-d]");
+        System.out.println("usage: GossipRunner [-d|-e|-p <threads>] [-s] [-a] [-l <minutes>] [-t <trace_file>] -f <filename>");
+        System.out.println("       GossipRunner [-d|-e|-p <threads>] [-s] [-a] [-l <minutes>] [-t <trace_file>] -b <binary_filename>");
+        System.out.println("       GossipRunner [-d|-e|-p <threads>] [-s] [-a] [-l <minutes>] [-t <trace_file>] -c <test_index>");
+        System.out.println("       GossipRunner [-d|-e|-p <threads>] [-s] [-a] [-l <minutes>] [-t <trace_file>]");
+        System.out.println("       GossipRunner [-x|-o <driver>] [-s] [-l <minutes>] -f <filename>|-b <binary_filename>|-c <test_index>");
+        System.out.println("       GossipRunner [-l <minutes>] -m <filename|directory>");
+        System.out.println("       GossipRunner convert [-v] <filename> <binary_filename>");
+        System.out.println("       GossipRunner replay [-t <minute>] <trace_file>");
+        System.out.println("       GossipRunner serve [<port> [<cache_size>]]");
+        System.out.println("       GossipRunner generate [<fleet_options>] <filename>|-");
+        System.out.println("       GossipRunner stress [<fleet_options>] [-s] [-l <minutes>] [-p <threads>]");
         System.out.println("   filename: name of filename to load route information from");
         System.out.println("       each line that doesn't begin with a # is a route");
         System.out.println("       each line should contain a comma-separated list of stops");
         System.out.println("           i.e. 4,6,7,8");
+        System.out.println("   binary_filename: name of a binary route file, written by convert. Loads much faster than text");
+        System.out.println("       convert -v writes varint encoded stops: smaller, but a bit slower to load");
         System.out.println("   test_index: index of the canned route to use [0-"+(CannedRoute.values().length-1)+"]");
         for(int i=0; i < CannedRoute.values().length; ++i) {
             System.out.println("        "+i+": "+CannedRoute.values()[i].desc);
         }
+        System.out.println("   -m: evaluates many scenarios in parallel, printing name, result and microseconds for each");
+        System.out.println("       simulation counters go to stderr at the end, and to JMX ("+GossipMetrics.OBJECT_NAME+") while running");
+        System.out.println("       a file holds scenarios separated by empty lines, a directory holds one scenario per file");
         System.out.println("   without specifying -f or -c, user must manually enter each route on the console");
         System.out.println("   -d: prints debug information for each stop");
+        System.out.println("   -e: event-skipping simulation, jumps from one meeting to the next (faster for sparse routes)");
+        System.out.println("   -p: simulates one scenario on this many threads (for tens of thousands of drivers)");
+        System.out.println("   -s: bonus rules, drivers that are gossiping stay at their stop for another minute");
+        System.out.println("   -a: also prints the minutes at which 50%, 90% and 99% of all (driver, gossip) pairs were known");
+        System.out.println("   -t: records a compact binary trace of every minute, much cheaper than -d");
+        System.out.println("       replay prints a trace in the format of -d, or only the given minute");
+        System.out.println("   -x: evaluates every variant with one driver left out, the driver that matters most first");
+        System.out.println("   -o: evaluates every start stop of the driver's route (index 0..), best result first");
+        System.out.println("       both print rank, variant, result and the change from the routes as given, in parallel on all cores");
+        System.out.println("   -l: last minute to simulate before giving up with never (default "+Gossip.DEFAULT_HORIZON+")");
+        System.out.println("   serve: local HTTP service, POST a scenario to /eval[?rule=bonus][&horizon=<minutes>], GET /stats");
+        System.out.println("       results are cached (default "+GossipService.DEFAULT_CACHE_SIZE+"), also for the same routes in another order");
+        System.out.println("       simulation counters are registered with JMX as "+GossipMetrics.OBJECT_NAME);
+        System.out.println("   generate: writes seeded synthetic scenarios (separated by empty lines, for -m), - for stdout");
+        System.out.println("   stress: generates and evaluates scenarios in-process on all cores (-p: this many threads),");
+        System.out.println("       printing throughput and latency percentiles");
+        System.out.println("   fleet_options: -n <scenarios> (default 1), -r <seed> (default 1), -d <drivers> (default 100),");
+        System.out.println("       -g <min>-<max> route lengths (default 4-16), -u <stops> stop ids 1..stops (default 1000),");
+        System.out.println("       -k <hubs> <bias> stops 1..hubs are picked with this probability (default none)");
         System.out.println("   -h, -?: shows this help");
     }
 }
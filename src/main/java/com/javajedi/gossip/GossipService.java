@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Long running local HTTP service evaluating route sets, so a warmed up JVM answers many requests.
+ *
+ * Endpoints:
+ *   POST /eval[?rule=bonus][&horizon=<minutes>]  body: one scenario in the text format of GossipRunner -f.
+ *       Answers the result (200), or "Error: <message>" (400). The X-Cache header tells whether it was cached
+ *   GET /stats  requests, errors, cache hits, misses and size, and evaluation latency in microseconds (mean, max,
+ *       and p50/p99 as the upper bound of their power of two bucket), as JSON
+ *
+ * Every request runs on its own virtual thread. Results are cached in a bounded LRU cache keyed by the sorted route
+ * set, so resubmitted scenarios, also with the drivers in another order, are answered without simulating.
+ * Binds to the loopback address only.
+ */
+public class GossipService implements Closeable {
+
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_CACHE_SIZE = 10_000;
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ResultCache cache;
+
+    // stats of /eval requests
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder latencyMicros = new LongAdder();
+    private final LongAccumulator maxLatencyMicros = new LongAccumulator(Math::max, 0);
+    private final AtomicLongArray latencyBuckets = new AtomicLongArray(64); // bucket b: less than 2^b micros
+    private final GossipMetrics metrics = new GossipMetrics(); // of the simulations
+
+    public GossipService(int port, int cacheSize) throws IOException {
+        this.cache = new ResultCache(cacheSize);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(executor);
+        server.createContext("/eval", this::handleEval);
+        server.createContext("/stats", this::handleStats);
+    }
+
+    public GossipService start() {
+        server.start();
+        return this;
+    }
+
+    // counters of the simulations run for /eval, e.g. to register over JMX
+    public GossipMetrics getMetrics() {
+        return metrics;
+    }
+
+    // the port listened on, useful when created with port 0
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    private void handleEval(HttpExchange ex) throws IOException {
+        try {
+            if(!"POST".equals(ex.getRequestMethod())) {
+                respond(ex, 405, "Error: POST a scenario");
+                return;
+            }
+            long start = System.nanoTime();
+            requests.increment();
+            String result;
+            boolean cached = false;
+            try {
+                GossipRule rule = GossipRule.STANDARD;
+                int horizon = Gossip.DEFAULT_HORIZON;
+                for(String[] param : params(ex.getRequestURI())) {
+                    if("rule".equals(param[0])) {
+                        rule = "bonus".equals(param[1]) ? GossipRule.STAY_WHILE_GOSSIPING : GossipRule.valueOf(param[1].toUpperCase());
+                    } else if("horizon".equals(param[0])) {
+                        horizon = Integer.parseInt(param[1]);
+                    } else {
+                        throw new IllegalArgumentException("unknown parameter: " + param[0]);
+                    }
+                }
+                RouteTable routes = RouteLoader.parse(readBody(ex));
+                ResultCache.Key key = new ResultCache.Key(routes, rule, horizon);
+                result = cache.get(key);
+                cached = result != null;
+                if(!cached) {
+                    result = Gossip.of(routes).setRule(rule).setHorizon(horizon).setMetrics(metrics).eval().getResult();
+                    cache.put(key, result);
+                }
+            } catch(IllegalArgumentException invalid) {
+                errors.increment();
+                respond(ex, 400, "Error: " + invalid.getMessage());
+                return;
+            }
+            long micros = (System.nanoTime() - start) / 1000;
+            latencyMicros.add(micros);
+            maxLatencyMicros.accumulate(micros);
+            latencyBuckets.incrementAndGet(64 - Long.numberOfLeadingZeros(micros));
+            ex.getResponseHeaders().set("X-Cache", cached ? "hit" : "miss");
+            respond(ex, 200, result);
+        } finally {
+            ex.close();
+        }
+    }
+
+    private void handleStats(HttpExchange ex) throws IOException {
+        try {
+            if(!"GET".equals(ex.getRequestMethod())) {
+                respond(ex, 405, "Error: GET the stats");
+                return;
+            }
+            ex.getResponseHeaders().set("Content-Type", "application/json");
+            respond(ex, 200, stats());
+        } finally {
+            ex.close();
+        }
+    }
+
+    // the stats as a JSON object
+    String stats() {
+        long evaluated = 0;
+        long[] buckets = new long[latencyBuckets.length()];
+        for(int b = 0; b < buckets.length; ++b) {
+            buckets[b] = latencyBuckets.get(b);
+            evaluated += buckets[b];
+        }
+        return "{\"requests\":" + requests.sum()
+                + ",\"errors\":" + errors.sum()
+                + ",\"hits\":" + cache.hits()
+                + ",\"misses\":" + cache.misses()
+                + ",\"cached\":" + cache.size()
+                + ",\"latencyMeanMicros\":" + (evaluated == 0 ? 0 : latencyMicros.sum() / evaluated)
+                + ",\"latencyP50Micros\":" + percentile(buckets, evaluated, 0.50)
+                + ",\"latencyP99Micros\":" + percentile(buckets, evaluated, 0.99)
+                + ",\"latencyMaxMicros\":" + maxLatencyMicros.get()
+                + "}";
+    }
+
+    // upper bound of the bucket holding the percentile
+    private static long percentile(long[] buckets, long count, double fraction) {
+        long needed = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for(int b = 0; b < buckets.length; ++b) {
+            seen += buckets[b];
+            if(seen >= needed && seen > 0) {
+                return b == 0 ? 0 : 1L << b;
+            }
+        }
+        return 0;
+    }
+
+    // name and value of each query parameter
+    private static List<String[]> params(URI uri) {
+        List<String[]> params = new ArrayList<>();
+        String query = uri.getRawQuery();
+        if(query != null && !query.isEmpty()) {
+            for(String param : query.split("&")) {
+                int eq = param.indexOf('=');
+                if(eq < 0) {
+                    throw new IllegalArgumentException("parameter without value: " + param);
+                }
+                params.add(new String[] {param.substring(0, eq), param.substring(eq + 1)});
+            }
+        }
+        return params;
+    }
+
+    private static String readBody(HttpExchange ex) throws IOException {
+        try(InputStream in = ex.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void respond(HttpExchange ex, int status, String body) throws IOException {
+        byte[] bytes = (body + "\n").getBytes(StandardCharsets.UTF_8);
+        ex.sendResponseHeaders(status, bytes.length);
+        try(OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
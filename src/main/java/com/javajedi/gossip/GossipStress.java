@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/*
+ * Stress run: generates scenarios with a FleetGenerator and evaluates them in-process, in parallel, then reports
+ * throughput and latency percentiles.
+ *
+ * Scenarios go straight from the generator to the engine as int arrays, never as text. Like GossipBatch, each worker
+ * thread evaluates with its own Gossip instance, and all of them count into one GossipMetrics.
+ */
+public class GossipStress {
+
+    private final FleetGenerator generator;
+    private final int parallelism;
+    private GossipRule rule = GossipRule.STANDARD;
+    private int horizon = Gossip.DEFAULT_HORIZON;
+    private final GossipMetrics metrics = new GossipMetrics();
+    private final ThreadLocal<Gossip> workerGossip = ThreadLocal.withInitial(
+            () -> new Gossip(new int[][] {{0}}).setRule(rule).setHorizon(horizon).setMetrics(metrics));
+
+    public GossipStress(FleetGenerator generator, int parallelism) {
+        if(parallelism < 1) {
+            throw new IllegalArgumentException("Invalid parallelism: "+parallelism);
+        }
+        this.generator = generator;
+        this.parallelism = parallelism;
+    }
+
+    // generates and evaluates scenarios 0..count-1, then writes the report
+    public Report run(int count, PrintStream out) {
+        if(count < 1) {
+            throw new IllegalArgumentException("Invalid number of scenarios: "+count);
+        }
+        final long[] latencyNanos = new long[count];
+        final LongAdder completed = new LongAdder();
+        final AtomicLong completedMinutes = new AtomicLong();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        long start = System.nanoTime();
+        try {
+            pool.submit(() -> IntStream.range(0, count).parallel().forEach(k -> {
+                int[][] routes = generator.scenario(k);
+                long begin = System.nanoTime();
+                String result = workerGossip.get().reset(routes).eval().getResult();
+                latencyNanos[k] = System.nanoTime() - begin;
+                if(!"never".equals(result)) {
+                    completed.increment();
+                    completedMinutes.addAndGet(Integer.parseInt(result));
+                }
+            })).join();
+        } finally {
+            pool.shutdown();
+        }
+        Report report = new Report(count, System.nanoTime() - start, latencyNanos, completed.intValue(),
+                completedMinutes.get());
+        if(out != null) {
+            out.println(report);
+            out.println(metrics.snapshot());
+        }
+        return report;
+    }
+
+    public GossipMetrics getMetrics() {
+        return metrics;
+    }
+
+    public GossipStress setRule(GossipRule rule) {
+        this.rule = rule;
+        return this;
+    }
+
+    // last minute to simulate before giving up with "never"
+    public GossipStress setHorizon(int horizon) {
+        if(horizon < 0) {
+            throw new IllegalArgumentException("Invalid horizon: "+horizon);
+        }
+        this.horizon = horizon;
+        return this;
+    }
+
+    /*
+     * Throughput and latency of a run. Latency is the evaluation of one scenario, without generating it.
+     */
+    public static final class Report {
+
+        private final int scenarios;
+        private final long elapsedNanos;
+        private final long[] sortedLatencyNanos;
+        private final int completed;
+        private final long completedMinutes;
+
+        Report(int scenarios, long elapsedNanos, long[] latencyNanos, int completed, long completedMinutes) {
+            this.scenarios = scenarios;
+            this.elapsedNanos = elapsedNanos;
+            this.sortedLatencyNanos = latencyNanos;
+            Arrays.sort(sortedLatencyNanos);
+            this.completed = completed;
+            this.completedMinutes = completedMinutes;
+        }
+
+        public int getScenarios() {
+            return scenarios;
+        }
+
+        // scenarios that completed, the others are "never"
+        public int getCompleted() {
+            return completed;
+        }
+
+        public double getScenariosPerSecond() {
+            return scenarios * 1e9 / Math.max(1, elapsedNanos);
+        }
+
+        // latency at the fraction (nearest rank), in microseconds
+        public double getLatencyMicros(double fraction) {
+            int rank = (int) Math.ceil(fraction * scenarios);
+            return sortedLatencyNanos[Math.max(0, Math.min(scenarios, rank) - 1)] / 1e3;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d scenarios in %d ms, %.1f scenarios/s%n", scenarios, elapsedNanos / 1000000,
+                    getScenariosPerSecond())
+                    + String.format("latency us: p50 %.1f, p90 %.1f, p99 %.1f, max %.1f%n", getLatencyMicros(0.5),
+                    getLatencyMicros(0.9), getLatencyMicros(0.99), getLatencyMicros(1))
+                    + String.format("completed %d (mean %.1f minutes), never %d", completed,
+                    completed == 0 ? 0 : (double) completedMinutes / completed, scenarios - completed);
+        }
+    }
+}
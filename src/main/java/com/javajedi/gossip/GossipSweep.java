@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/*
+ * What-if sweeps over one scenario, evaluated in parallel on a ForkJoinPool:
+ *   leaveOneOut: every variant with one driver removed, ranked by how much worse the result gets without them
+ *   startOffsets: every variant with one driver starting further along its route, best result first
+ *
+ * The routes are compiled once: variants derive their RouteLayout from the scenario's (same stops and dense ids), so
+ * nothing is parsed or interned again. Like GossipBatch, each worker thread evaluates with its own Gossip instance,
+ * reset for every variant it picks up.
+ *
+ * Notes:
+ *   Not threadsafe, use one sweep per thread
+ *   "never" ranks as the worst result
+ */
+public class GossipSweep {
+
+    private final int[][] routes;
+    private final RouteLayout layout;
+    private final int parallelism;
+    private GossipRule rule = GossipRule.STANDARD;
+    private int horizon = Gossip.DEFAULT_HORIZON;
+    private final ThreadLocal<Gossip> workerGossip = ThreadLocal.withInitial(() -> new Gossip(new int[][] {{0}}));
+
+    public GossipSweep(final int[][] routes, int parallelism) {
+        Objects.requireNonNull(routes, "Illegal number of routes");
+        if(routes.length == 0) {
+            throw new IllegalArgumentException("Invalid number of routes");
+        }
+        if(parallelism < 1) {
+            throw new IllegalArgumentException("Invalid parallelism: "+parallelism);
+        }
+        this.routes = routes;
+        this.layout = RouteLayout.of(routes);
+        this.parallelism = parallelism;
+    }
+
+    // result of the scenario itself, to compare the variants with
+    public String baseline() {
+        return evaluate(routes, layout).getResult();
+    }
+
+    // one variant per driver, the driver whose absence hurts most first. Empty for a single driver
+    public List<Variant> leaveOneOut() {
+        final int drivers = routes.length;
+        if(drivers < 2) {
+            return new ArrayList<>();
+        }
+        List<Variant> variants = sweep(drivers, i -> {
+            int[][] without = new int[drivers - 1][];
+            System.arraycopy(routes, 0, without, 0, i);
+            System.arraycopy(routes, i + 1, without, i, drivers - i - 1);
+            return new Variant(i, 0, evaluate(without, layout.without(i)));
+        });
+        variants.sort(Comparator.comparingLong(Variant::rank).reversed().thenComparingInt(Variant::getDriver));
+        return variants;
+    }
+
+    // one variant per start index 1..length-1 of the driver's route (the driver is that many stops ahead at minute
+    // 0, the same as starting that many minutes earlier), best result first
+    public List<Variant> startOffsets(int driver) {
+        if(driver < 0 || driver >= routes.length) {
+            throw new IllegalArgumentException("Invalid driver: "+driver);
+        }
+        final int[] route = routes[driver];
+        List<Variant> variants = sweep(route.length - 1, k -> {
+            int start = k + 1;
+            int[][] shifted = routes.clone();
+            shifted[driver] = new int[route.length];
+            for(int j = 0; j < route.length; ++j) {
+                shifted[driver][j] = route[(start + j) % route.length];
+            }
+            return new Variant(driver, start, evaluate(shifted, layout.rotated(driver, start)));
+        });
+        variants.sort(Comparator.comparingLong(Variant::rank).thenComparingInt(Variant::getOffset));
+        return variants;
+    }
+
+    // variant k for k in 0..count-1
+    private interface VariantTask {
+        Variant run(int k);
+    }
+
+    private List<Variant> sweep(int count, VariantTask task) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<ForkJoinTask<Variant>> pending = new ArrayList<>(count);
+            for(int k = 0; k < count; ++k) {
+                final int variant = k;
+                pending.add(pool.submit(() -> task.run(variant)));
+            }
+            List<Variant> variants = new ArrayList<>(count);
+            for(ForkJoinTask<Variant> variant : pending) {
+                variants.add(variant.join());
+            }
+            return variants;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // runs on a worker thread (or the caller's, for the baseline)
+    private Gossip evaluate(int[][] routes, RouteLayout layout) {
+        return workerGossip.get().reset(routes, layout).setRule(rule).setHorizon(horizon).eval();
+    }
+
+    public GossipSweep setRule(GossipRule rule) {
+        this.rule = Objects.requireNonNull(rule, "rule");
+        return this;
+    }
+
+    // last minute to simulate before giving up with "never"
+    public GossipSweep setHorizon(int horizon) {
+        if(horizon < 0) {
+            throw new IllegalArgumentException("Invalid horizon: "+horizon);
+        }
+        this.horizon = horizon;
+        return this;
+    }
+
+    /*
+     * Result of one variant: the driver removed (leaveOneOut) or shifted by offset stops (startOffsets).
+     */
+    public static final class Variant {
+
+        private final int driver;
+        private final int offset;
+        private final String result;
+        private final int finalTick;
+
+        Variant(int driver, int offset, Gossip gossip) {
+            this.driver = driver;
+            this.offset = offset;
+            this.result = gossip.getResult();
+            this.finalTick = gossip.getFinalTick();
+        }
+
+        public int getDriver() {
+            return driver;
+        }
+
+        // start index of the driver's route, 0 for leaveOneOut
+        public int getOffset() {
+            return offset;
+        }
+
+        public String getResult() {
+            return result;
+        }
+
+        public int getFinalTick() {
+            return finalTick;
+        }
+
+        // minutes for ranking, "never" after every number
+        long rank() {
+            return "never".equals(result) ? Long.MAX_VALUE : Long.parseLong(result);
+        }
+    }
+}
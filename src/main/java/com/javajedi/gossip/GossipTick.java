@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+/*
+ * State of a simulation at the end of one minute's exchange, as published to TickPublisher subscribers.
+ *
+ * Immutable: locations and gossip sets are copied when the tick is taken, so subscribers can keep ticks and read them
+ * on any thread while the simulation goes on. The routes are shared with the simulation and must not be modified.
+ */
+public final class GossipTick {
+
+    private final int minute;
+    private final int[][] routes;
+    private final int[] location;
+    private final boolean[] staying;
+    private final long[] gossip;
+    private final int words;
+
+    GossipTick(int minute, int[][] routes, int[] location, boolean[] staying, long[] gossip) {
+        this.minute = minute;
+        this.routes = routes;
+        this.location = location;
+        this.staying = staying;
+        this.gossip = gossip;
+        this.words = GossipBits.words(routes.length);
+    }
+
+    public int getMinute() {
+        return minute;
+    }
+
+    public int getDrivers() {
+        return routes.length;
+    }
+
+    // index of the driver's current stop in its route
+    public int getLocation(int driver) {
+        return location[driver];
+    }
+
+    // the driver's current stop
+    public int getStop(int driver) {
+        return routes[driver][location[driver]];
+    }
+
+    // true if the driver stays put next minute (bonus rule)
+    public boolean isStaying(int driver) {
+        return staying[driver];
+    }
+
+    // true if the driver knows the gossip
+    public boolean knows(int driver, int gossip) {
+        return GossipBits.get(this.gossip, driver, words, gossip) != 0;
+    }
+
+    // number of gossips the driver knows
+    public int knownCount(int driver) {
+        return GossipBits.count(gossip, driver, words);
+    }
+
+    // the text of Gossip -d for this minute
+    public String render() {
+        StringBuilder s = new StringBuilder("t = ").append(minute).append(System.lineSeparator());
+        for(int i = 0; i < routes.length; ++i) {
+            Gossip.appendDriver(s, routes, gossip, i, location[i], staying[i]);
+        }
+        return s.toString();
+    }
+}
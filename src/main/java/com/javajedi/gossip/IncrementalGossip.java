@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Objects;
+
+/*
+ * Gossip for routes that are edited one at a time: re-evaluating after an edit resumes from a snapshot instead of
+ * starting over at minute 0. Same rules and results (and final ticks) as Gossip.
+ *
+ * While simulating, the gossip sets and the minute of the last news are copied every snapshotInterval minutes.
+ * Positions aren't stored, under the standard rule driver i is at routes[i][t % length] at minute t. An edited route
+ * changes nothing before the first minute at which the driver is at another stop than before, so every snapshot up
+ * to that minute stays valid. Evaluation resumes from the latest of them that a fresh run would still reach (a shorter
+ * period or horizon can decide sooner), and only the rest of the timeline is simulated again.
+ *
+ * Notes:
+ *   Not threadsafe
+ *   Standard rule only: under the bonus rule positions depend on the gossip exchanged
+ *   Snapshots take drivers * drivers / 8 bytes each
+ */
+public class IncrementalGossip {
+
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 16;
+
+    private final int[][] routes;
+    private final int words;
+    private final long[] initialGossip;
+    private int horizon = Gossip.DEFAULT_HORIZON;
+    private int snapshotInterval = DEFAULT_SNAPSHOT_INTERVAL;
+    private String result = null;
+    private int finalTick = -1;
+    private int resumedAt = -1;
+    private PrintWriter outputWriter = null;
+
+    // snapshot k holds the state at the start of minute k * snapshotInterval (before its exchange)
+    private int snapshots = 0;
+    private long[][] snapshotGossip = new long[8][];
+    private int[] snapshotLastChange = new int[8];
+    private int[] snapshotMaxQuiet = new int[8]; // longest run of minutes without news before the snapshot
+
+    // per-minute state
+    private long[] gossip;
+    private int[] nextAtStop;
+    private int[] stopHead;
+    private int[] touchedStops;
+
+    public IncrementalGossip(final int[][] routes) {
+        Objects.requireNonNull(routes, "Illegal number of routes");
+        if(routes.length == 0) {
+            throw new IllegalArgumentException("Invalid number of routes");
+        }
+        for(int[] route : routes) {
+            checkRoute(route);
+        }
+        this.routes = routes.clone();
+        this.words = GossipBits.words(routes.length);
+        this.initialGossip = GossipBits.initial(routes.length);
+        this.nextAtStop = new int[routes.length];
+        this.touchedStops = new int[routes.length];
+    }
+
+    private static void checkRoute(int[] route) {
+        if(route == null || route.length == 0) {
+            throw new IllegalArgumentException("Invalid route");
+        }
+    }
+
+    // evaluates the routes, writing the result to the output writer (if any)
+    public IncrementalGossip eval() {
+        // only eval once per edit
+        if(result == null) {
+            result = simulate();
+        }
+        if(outputWriter != null) {
+            outputWriter.println(result);
+        }
+        return this;
+    }
+
+    // result of the evaluation, or null if not eval'ed since the last edit
+    public String getResult() {
+        return result;
+    }
+
+    // minute at which the result was decided, or -1 if not eval'ed yet (same as Gossip.getFinalTick)
+    public int getFinalTick() {
+        return finalTick;
+    }
+
+    // minute the last evaluation resumed at: 0 for a full run, -1 if it didn't simulate
+    public int getResumedAt() {
+        return resumedAt;
+    }
+
+    // replaces the route of the driver. Snapshots taken before the driver's first different stop are kept
+    public IncrementalGossip setRoute(int driver, int[] route) {
+        if(driver < 0 || driver >= routes.length) {
+            throw new IllegalArgumentException("Invalid driver: "+driver);
+        }
+        checkRoute(route);
+        int[] old = routes[driver];
+        routes[driver] = route.clone();
+        // first minute the driver is somewhere else. Both routes repeat after lcm minutes, and minutes after the
+        // horizon don't matter
+        long lcm = RouteMath.lcm(old.length, route.length, horizon + 1L);
+        long limit = lcm < 0 ? horizon + 1L : lcm;
+        int diverges = 0;
+        while(diverges < limit && old[diverges % old.length] == route[diverges % route.length]) {
+            ++diverges;
+        }
+        // the snapshot at the start of minute 'diverges' is still valid, its exchange isn't part of it. If the stops
+        // are the same at every minute, all of them are
+        if(diverges != lcm) {
+            snapshots = Math.min(snapshots, diverges / snapshotInterval + 1);
+        }
+        result = null;
+        return this;
+    }
+
+    private String simulate() {
+        resumedAt = -1;
+        // same pre-checks as Gossip, so the final tick agrees as well
+        final RouteLayout layout = RouteLayout.of(routes);
+        StopGraph graph = new StopGraph(layout);
+        final int lowerBound = graph.isConnected() ? Math.max(1, graph.diameterLowerBound()) : Integer.MAX_VALUE;
+        if(lowerBound > horizon + 1L) {
+            finalTick = 0;
+            return "never";
+        }
+        if(stopHead == null || stopHead.length < layout.stopCount) {
+            stopHead = new int[layout.stopCount];
+        }
+        Arrays.fill(stopHead, -1);
+        final long[] allGossip = new long[words];
+        GossipBits.union(initialGossip, routes.length, allGossip);
+        final long period = RouteMath.period(routes, horizon);
+
+        // resume from the latest valid snapshot that a fresh run reaches: edits and the horizon can end it sooner, e.g.
+        // a route replaced by its own repetition keeps every snapshot, but shortens the period
+        while(snapshots > 0 && ((snapshots - 1) * (long) snapshotInterval > horizon
+                || 0 < period && snapshotMaxQuiet[snapshots - 1] >= period)) {
+            --snapshots;
+        }
+        int lastChange;
+        int maxQuiet;
+        if(snapshots == 0) {
+            gossip = initialGossip.clone();
+            lastChange = -1;
+            maxQuiet = 0;
+            resumedAt = 0;
+        } else {
+            gossip = snapshotGossip[snapshots - 1].clone();
+            lastChange = snapshotLastChange[snapshots - 1];
+            maxQuiet = snapshotMaxQuiet[snapshots - 1];
+            resumedAt = (snapshots - 1) * snapshotInterval;
+        }
+        for(int mins = resumedAt; ; ++mins) {
+            if(mins % snapshotInterval == 0 && mins / snapshotInterval == snapshots) {
+                takeSnapshot(lastChange, maxQuiet);
+            }
+            if(exchangeGossip(layout, mins)) {
+                lastChange = mins;
+            }
+            maxQuiet = Math.max(maxQuiet, mins - lastChange);
+            finalTick = mins;
+            // evaluate completion criteria
+            if(mins + 1 >= lowerBound && GossipBits.allKnow(gossip, routes.length, allGossip)) {
+                return (mins + 1) + "";
+            }
+            // a whole period without news: every future minute repeats one we've already seen
+            if(0 < period && mins - lastChange >= period || mins == horizon) {
+                return "never";
+            }
+        }
+    }
+
+    private void takeSnapshot(int lastChange, int maxQuiet) {
+        if(snapshots == snapshotGossip.length) {
+            snapshotGossip = Arrays.copyOf(snapshotGossip, snapshots * 2);
+            snapshotLastChange = Arrays.copyOf(snapshotLastChange, snapshots * 2);
+            snapshotMaxQuiet = Arrays.copyOf(snapshotMaxQuiet, snapshots * 2);
+        }
+        if(snapshotGossip[snapshots] == null) {
+            snapshotGossip[snapshots] = gossip.clone();
+        } else {
+            System.arraycopy(gossip, 0, snapshotGossip[snapshots], 0, gossip.length);
+        }
+        snapshotLastChange[snapshots] = lastChange;
+        snapshotMaxQuiet[snapshots] = maxQuiet;
+        ++snapshots;
+    }
+
+    // same as Gossip.exchangeGossip, with the positions of minute 'mins'
+    private boolean exchangeGossip(RouteLayout layout, int mins) {
+        boolean changed = false;
+        int touched = 0;
+        for(int i = routes.length - 1; i >= 0; --i) {
+            int stop = layout.stops[layout.offsets[i] + mins % layout.lengths[i]];
+            if(stopHead[stop] == -1) {
+                touchedStops[touched++] = stop;
+            }
+            nextAtStop[i] = stopHead[stop];
+            stopHead[stop] = i;
+        }
+        for(int k = 0; k < touched; ++k) {
+            int head = stopHead[touchedStops[k]];
+            stopHead[touchedStops[k]] = -1;
+            if(nextAtStop[head] == -1) {
+                continue; // driver is alone at this stop
+            }
+            boolean groupChanged = false;
+            for(int i = nextAtStop[head]; i != -1; i = nextAtStop[i]) {
+                groupChanged |= !GossipBits.same(gossip, head, i, words);
+                GossipBits.or(gossip, head, i, words);
+            }
+            if(groupChanged) {
+                changed = true;
+                for(int i = nextAtStop[head]; i != -1; i = nextAtStop[i]) {
+                    GossipBits.copy(gossip, i, head, words);
+                }
+            }
+        }
+        return changed;
+    }
+
+    // minutes between snapshots. Drops the snapshots taken so far
+    public IncrementalGossip setSnapshotInterval(int snapshotInterval) {
+        if(snapshotInterval < 1) {
+            throw new IllegalArgumentException("Invalid snapshot interval: "+snapshotInterval);
+        }
+        this.snapshotInterval = snapshotInterval;
+        this.snapshots = 0;
+        return this;
+    }
+
+    // last minute to simulate before giving up with "never"
+    public IncrementalGossip setHorizon(int horizon) {
+        if(horizon < 0) {
+            throw new IllegalArgumentException("Invalid horizon: "+horizon);
+        }
+        this.horizon = horizon;
+        this.result = null;
+        return this;
+    }
+
+    public IncrementalGossip setOutputWriter(PrintWriter outputWriter) {
+        this.outputWriter = outputWriter;
+        return this;
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/*
+ * Simulates up to 64 small scenarios at once, bit-sliced: bit l of every word belongs to scenario (lane) l.
+ *
+ * The scenarios must have the same number of drivers and the same route length for each driver, so under the standard
+ * rule every driver is at the same route index in every lane (t % length) and only the stops differ. Per lane, stops
+ * are remapped to dense ids and stored as bit planes: plane b of a route index holds bit b of the stop id in every
+ * lane. Two drivers meet in the lanes where all their planes agree, found with a few XORs instead of 64 compares.
+ * knows[i * drivers + g] holds the lanes in which driver i knows gossip g, so a meeting merges with one AND/OR per
+ * gossip for all lanes.
+ *
+ * Each lane has the same result and final tick as Gossip with the standard rule.
+ *
+ * Notes:
+ *   Not threadsafe
+ *   Standard rule only: under the bonus rule positions depend on the gossip exchanged, so they differ between lanes
+ *   Work per minute grows with drivers^2 (pairs) plus meetings * drivers, so this only pays off for small scenarios
+ *   It is not an order of magnitude faster than 64 Gossip runs: LaneGossipBenchmark measures 2x to 5x, and about 2x
+ *   when the lanes wait out a whole period before they are "never". Every pair of drivers is tested in every minute
+ *   with drivers^2 * bits plane XORs, where Gossip buckets each lane's drivers by stop in linear time. Bucketing by
+ *   stop is per lane, so it would give up the bit slicing
+ */
+public class LaneGossip {
+
+    public static final int LANES = 64;
+
+    private final int lanes;
+    private final int drivers;
+    private final int[] offsets;   // route index slots of each driver (same in every lane)
+    private final int[] lengths;
+    private final int bits;        // bit planes per stop
+    private final long[] planes;   // planes[(offsets[i] + k) * bits + b]: lanes where bit b of the stop is set
+    private final long period;     // LCM of the route lengths, -1 if it overflows
+    private final List<int[][]> scenarios;
+    private final long disconnected; // lanes whose drivers don't all share stops, directly or via others
+    private int horizon = Gossip.DEFAULT_HORIZON;
+    private String[] results = null;
+    private final int[] finalTicks;
+    private PrintWriter outputWriter = null;
+
+    public LaneGossip(final List<int[][]> scenarios) {
+        Objects.requireNonNull(scenarios, "Illegal number of scenarios");
+        if(scenarios.isEmpty() || scenarios.size() > LANES) {
+            throw new IllegalArgumentException("Invalid number of scenarios: "+scenarios.size());
+        }
+        lanes = scenarios.size();
+        int[][] first = scenarios.get(0);
+        if(first == null || first.length == 0) {
+            throw new IllegalArgumentException("Invalid number of routes");
+        }
+        drivers = first.length;
+        offsets = new int[drivers];
+        lengths = new int[drivers];
+        int slots = 0;
+        for(int i = 0; i < drivers; ++i) {
+            if(first[i] == null || first[i].length == 0) {
+                throw new IllegalArgumentException("Invalid route");
+            }
+            offsets[i] = slots;
+            lengths[i] = first[i].length;
+            slots += lengths[i];
+        }
+        // dense stop ids of each lane, from one interning table that is cleared between lanes
+        int[] ids = new int[slots * lanes];
+        int capacity = Integer.highestOneBit(Math.max(4, slots * 2 - 1)) << 1;
+        int[] keys = new int[capacity];
+        int[] values = new int[capacity]; // dense id + 1, 0 for an empty slot
+        // drivers linked by shared stops (union-find), to decide disconnected lanes up front like Gossip does
+        int[] parent = new int[drivers];
+        int[] firstDriver = new int[slots];
+        long disconnected = 0;
+        int maxStops = 1;
+        for(int l = 0; l < lanes; ++l) {
+            int[][] routes = scenarios.get(l);
+            if(!isSameProfile(first, routes)) {
+                throw new IllegalArgumentException("Scenario "+l+" doesn't have the driver count and route lengths of scenario 0");
+            }
+            Arrays.fill(values, 0);
+            int size = 0;
+            for(int i = 0, s = l * slots; i < drivers; ++i) {
+                parent[i] = i;
+                for(int stop : routes[i]) {
+                    int h = stop * 0x9E3779B9;
+                    int k = (h ^ h >>> 16) & capacity - 1;
+                    while(values[k] != 0 && keys[k] != stop) {
+                        k = k + 1 & capacity - 1;
+                    }
+                    if(values[k] == 0) {
+                        keys[k] = stop;
+                        values[k] = ++size;
+                        firstDriver[size - 1] = i;
+                    } else {
+                        parent[find(parent, firstDriver[values[k] - 1])] = find(parent, i);
+                    }
+                    ids[s++] = values[k] - 1;
+                }
+            }
+            for(int i = 1; i < drivers; ++i) {
+                if(find(parent, i) != find(parent, 0)) {
+                    disconnected |= 1L << l;
+                    break;
+                }
+            }
+            maxStops = Math.max(maxStops, size);
+        }
+        bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(maxStops - 1));
+        planes = new long[slots * bits];
+        for(int l = 0; l < lanes; ++l) {
+            for(int s = 0; s < slots; ++s) {
+                for(int id = ids[l * slots + s]; id != 0; id &= id - 1) {
+                    planes[s * bits + Integer.numberOfTrailingZeros(id)] |= 1L << l;
+                }
+            }
+        }
+        period = RouteMath.period(first, Long.MAX_VALUE);
+        finalTicks = new int[lanes];
+        Arrays.fill(finalTicks, -1);
+        this.scenarios = scenarios;
+        this.disconnected = disconnected;
+    }
+
+    private static int find(int[] parent, int i) {
+        while(parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    // results of any number of scenarios, in order: scenarios with the same profile are evaluated 64 at a time, a
+    // scenario without a match with Gossip
+    public static String[] evalAll(final List<int[][]> scenarios, int horizon) {
+        Integer[] order = new Integer[scenarios.size()];
+        for(int k = 0; k < order.length; ++k) {
+            order[k] = k;
+        }
+        // group the scenarios by profile: driver count, then the route lengths
+        Arrays.sort(order, (a, b) -> compareProfiles(scenarios.get(a), scenarios.get(b)));
+        String[] results = new String[order.length];
+        List<int[][]> batch = new ArrayList<>(LANES);
+        for(int start = 0; start < order.length; ) {
+            int end = start + 1;
+            while(end < order.length && end - start < LANES
+                    && isSameProfile(scenarios.get(order[start]), scenarios.get(order[end]))) {
+                ++end;
+            }
+            if(end - start == 1) {
+                results[order[start]] = new Gossip(scenarios.get(order[start])).setHorizon(horizon).eval().getResult();
+            } else {
+                batch.clear();
+                for(int k = start; k < end; ++k) {
+                    batch.add(scenarios.get(order[k]));
+                }
+                LaneGossip lanes = new LaneGossip(batch).setHorizon(horizon).eval();
+                for(int k = start; k < end; ++k) {
+                    results[order[k]] = lanes.getResult(k - start);
+                }
+            }
+            start = end;
+        }
+        return results;
+    }
+
+    private static int compareProfiles(int[][] a, int[][] b) {
+        if(a.length != b.length) {
+            return Integer.compare(a.length, b.length);
+        }
+        for(int i = 0; i < a.length; ++i) {
+            if(a[i].length != b[i].length) {
+                return Integer.compare(a[i].length, b[i].length);
+            }
+        }
+        return 0;
+    }
+
+    // true if both scenarios have the same number of drivers and the same route length for each driver
+    public static boolean isSameProfile(int[][] a, int[][] b) {
+        if(a == null || b == null || a.length != b.length) {
+            return false;
+        }
+        for(int i = 0; i < a.length; ++i) {
+            if(a[i] == null || b[i] == null || a[i].length != b[i].length) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // evaluates all lanes, writing their results to the output writer (if any), one line per lane
+    public LaneGossip eval() {
+        // only eval once
+        if(results == null) {
+            results = new String[lanes];
+            simulate();
+        }
+        if(outputWriter != null) {
+            for(String result : results) {
+                outputWriter.println(result);
+            }
+        }
+        return this;
+    }
+
+    private void simulate() {
+        final long allLanes = lanes == LANES ? -1L : (1L << lanes) - 1;
+        long active = allLanes & ~disconnected;
+        for(long never = disconnected; never != 0; never &= never - 1) {
+            decide(Long.numberOfTrailingZeros(never), "never", 0);
+        }
+        final long period = this.period <= horizon ? this.period : -1; // same as RouteMath.period(routes, horizon)
+        final int n = drivers;
+        long[] knows = new long[n * n];
+        long[] next = new long[n * n];
+        for(int i = 0; i < n; ++i) {
+            knows[i * n + i] = allLanes;
+        }
+        final int[] slot = new int[n];
+        final int[] lastChange = new int[lanes];
+        Arrays.fill(lastChange, -1);
+        for(int mins = 0; active != 0; ++mins) {
+            for(int i = 0; i < n; ++i) {
+                slot[i] = (offsets[i] + mins % lengths[i]) * bits;
+            }
+            // every driver ORs in what the drivers at the same stop knew at the start of the minute. Everybody at a
+            // stop meets everybody else there, so that is the union of the group
+            System.arraycopy(knows, 0, next, 0, n * n);
+            for(int i = 0; i < n; ++i) {
+                for(int j = i + 1; j < n; ++j) {
+                    long meet = active;
+                    for(int b = 0; b < bits && meet != 0; ++b) {
+                        meet &= ~(planes[slot[i] + b] ^ planes[slot[j] + b]);
+                    }
+                    if(meet == 0) {
+                        continue;
+                    }
+                    final int rowI = i * n, rowJ = j * n;
+                    for(int g = 0; g < n; ++g) {
+                        next[rowI + g] |= knows[rowJ + g] & meet;
+                        next[rowJ + g] |= knows[rowI + g] & meet;
+                    }
+                }
+            }
+            long changed = 0;
+            long complete = active;
+            for(int k = 0; k < n * n; ++k) {
+                changed |= next[k] ^ knows[k];
+                complete &= next[k];
+            }
+            long[] swap = knows;
+            knows = next;
+            next = swap;
+            // same order of checks as Gossip: completion, then a period without news or the horizon
+            for(long pending = active; pending != 0; pending &= pending - 1) {
+                int l = Long.numberOfTrailingZeros(pending);
+                if((changed >>> l & 1) != 0) {
+                    lastChange[l] = mins;
+                }
+                if((complete >>> l & 1) != 0) {
+                    decide(l, (mins + 1) + "", mins);
+                } else if(0 < period && mins - lastChange[l] >= period || mins == horizon) {
+                    decide(l, "never", isNeverUpFront(l) ? 0 : mins);
+                } else {
+                    continue;
+                }
+                active &= ~(1L << l);
+            }
+        }
+    }
+
+    // true if Gossip answers "never" for the connected lane without simulating (diameter bound past the horizon).
+    // Those lanes can't complete, so checking once they are "never" gives Gossip's final tick as well
+    private boolean isNeverUpFront(int lane) {
+        return new StopGraph(RouteLayout.of(scenarios.get(lane))).diameterLowerBound() > horizon + 1L;
+    }
+
+    private void decide(int lane, String result, int finalTick) {
+        results[lane] = result;
+        finalTicks[lane] = finalTick;
+    }
+
+    // number of scenarios
+    public int lanes() {
+        return lanes;
+    }
+
+    // result of the scenario, or null if not eval'ed yet
+    public String getResult(int lane) {
+        return results == null ? null : results[lane];
+    }
+
+    // minute at which the scenario's result was decided, or -1 if not eval'ed yet
+    public int getFinalTick(int lane) {
+        return finalTicks[lane];
+    }
+
+    // last minute to simulate before giving up with "never"
+    public LaneGossip setHorizon(int horizon) {
+        if(horizon < 0) {
+            throw new IllegalArgumentException("Invalid horizon: "+horizon);
+        }
+        this.horizon = horizon;
+        return this;
+    }
+
+    public LaneGossip setOutputWriter(PrintWriter outputWriter) {
+        this.outputWriter = outputWriter;
+        return this;
+    }
+}
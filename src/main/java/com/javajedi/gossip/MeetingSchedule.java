@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/*
+ * The groups of drivers that meet at each minute of the period LCM(route lengths), compiled once for a route set.
+ *
+ * Driver positions repeat every period, so minute t has the same meeting groups as phase t % period. A Gossip built
+ * from a schedule only applies these precomputed unions each minute. The schedule is immutable and can be shared by
+ * any number of Gossip instances (e.g. the same routes with different initial gossip), also across threads.
+ *
+ * Layout: the groups of phase p are groupStart[phaseStart[p] .. phaseStart[p+1]), the members of group g are
+ * members[groupStart[g] .. groupStart[g+1]). Drivers that are alone at their stop are left out.
+ */
+public final class MeetingSchedule {
+
+    private final int[][] routes;
+    private final int period;
+    private final int[] phaseStart;
+    private final int[] groupStart;
+    private final int[] members;
+
+    private MeetingSchedule(int[][] routes, int period, int[] phaseStart, int[] groupStart, int[] members) {
+        this.routes = routes;
+        this.period = period;
+        this.phaseStart = phaseStart;
+        this.groupStart = groupStart;
+        this.members = members;
+    }
+
+    // compiles the schedule of the routes, or returns null if their period is larger than maxPeriod
+    public static MeetingSchedule compile(final int[][] routes, int maxPeriod) {
+        Objects.requireNonNull(routes, "Illegal number of routes");
+        if(routes.length == 0) {
+            throw new IllegalArgumentException("Invalid number of routes");
+        }
+        return compile(routes, RouteLayout.of(routes), maxPeriod);
+    }
+
+    // same, for routes already compiled into a layout
+    static MeetingSchedule compile(final int[][] routes, RouteLayout layout, int maxPeriod) {
+        long period = RouteMath.period(routes, maxPeriod);
+        if(period < 0) {
+            return null;
+        }
+        int[] phaseStart = new int[(int) period + 1];
+        int[] groupStart = new int[16];
+        int[] members = new int[16];
+        int groups = 0;
+        int size = 0;
+        // bucket the drivers by stop for every phase, same as Gossip does each minute
+        final int[] stops = layout.stops;
+        final int[] offsets = layout.offsets;
+        final int[] lengths = layout.lengths;
+        int[] stopHead = new int[layout.stopCount];
+        Arrays.fill(stopHead, -1);
+        int[] touchedStops = new int[routes.length];
+        int[] nextAtStop = new int[routes.length];
+        for(int p = 0; p < period; ++p) {
+            phaseStart[p] = groups;
+            int touched = 0;
+            for(int i = routes.length - 1; i >= 0; --i) {
+                int stop = stops[offsets[i] + p % lengths[i]];
+                if(stopHead[stop] == -1) {
+                    touchedStops[touched++] = stop;
+                }
+                nextAtStop[i] = stopHead[stop];
+                stopHead[stop] = i;
+            }
+            for(int k = 0; k < touched; ++k) {
+                int head = stopHead[touchedStops[k]];
+                stopHead[touchedStops[k]] = -1;
+                if(nextAtStop[head] == -1) {
+                    continue; // driver is alone at this stop
+                }
+                if(groups + 1 >= groupStart.length) {
+                    groupStart = Arrays.copyOf(groupStart, groupStart.length * 2);
+                }
+                groupStart[groups++] = size;
+                for(int i = head; i != -1; i = nextAtStop[i]) {
+                    if(size == members.length) {
+                        members = Arrays.copyOf(members, members.length * 2);
+                    }
+                    members[size++] = i;
+                }
+            }
+        }
+        phaseStart[(int) period] = groups;
+        groupStart[groups] = size;
+        return new MeetingSchedule(routes, (int) period,
+                phaseStart, Arrays.copyOf(groupStart, groups + 1), Arrays.copyOf(members, size));
+    }
+
+    int[][] routes() {
+        return routes;
+    }
+
+    int period() {
+        return period;
+    }
+
+    int[] phaseStart() {
+        return phaseStart;
+    }
+
+    int[] groupStart() {
+        return groupStart;
+    }
+
+    int[] members() {
+        return members;
+    }
+}
@@ -0,0 +1,349 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.Phaser;
+
+/*
+ * Multi-threaded alternative to Gossip for a single scenario with very many drivers: same rules, same results.
+ *
+ * Drivers are split into contiguous ranges, one per worker, and so are the dense stops (balanced by the number of
+ * visits). Every minute runs in two phases, each ending at a barrier (one Phaser, two phases per minute):
+ *   1. each worker checks and moves its drivers, then sorts them into one box per worker owning their stop
+ *   2. each worker groups the drivers of its boxes by stop and merges the gossip of each group
+ * The barrier action after phase 1 decides the previous minute (complete, nothing can change any more, horizon)
+ * exactly like Gossip does, so results and final ticks match the serial engine.
+ *
+ * Notes:
+ *   Not threadsafe (eval uses its own worker threads)
+ *   Standard rule only
+ *   All drivers at a stop belong to the worker owning the stop, so groups never span workers and the merge works in
+ *   place: gossip rows are only read and written by the worker merging their group. Per-minute buffers are owned by
+ *   one worker each, the barrier publishes them to the next phase
+ *   Only pays off for tens of thousands of drivers, below that the barriers cost more than the work
+ */
+public class ParallelGossip {
+
+    private final int[][] routes;
+    private final RouteLayout layout;
+    private final int threads;
+    private final int words;
+    private final long[] gossip;      // gossip sets, see GossipBits
+    private int horizon = Gossip.DEFAULT_HORIZON;
+    private int finalTick = -1;
+    private String result = null;
+    private PrintWriter outputWriter = null;
+
+    // partitions
+    private final int[] driverStart;  // worker w moves drivers driverStart[w] .. driverStart[w+1]
+    private final int[] stopOwner;    // worker merging each dense stop
+
+    // per-minute state, see the phases above
+    private final int[] location;
+    private final int[] stopOf;       // dense stop of each driver this minute
+    private final int[] boxed;        // drivers of worker w sorted by owner, boxStart[w][o] .. boxStart[w][o+1]
+    private final int[][] boxStart;
+    private final int[][] boxFill;
+    private final int[] stopHead;     // first driver at a dense stop, -1 if none
+    private final int[] nextAtStop;
+    private final int[][] touchedStops; // per worker
+    private final boolean[] changed;  // per worker, somebody learned something in phase 2
+    private final boolean[] complete; // per worker, all its drivers know everything
+
+    // decisions of the barrier action
+    private long[] allGossip;      // the gossip set every driver has to learn
+    private int lowerBound;
+    private long period;
+    private int mins;
+    private int lastChange;
+    private volatile boolean done;
+    private volatile Throwable failure;
+    int failingWorker = -1;           // for tests: this worker throws in its first minute
+
+    public ParallelGossip(final int[][] routes, int threads) {
+        Objects.requireNonNull(routes, "Illegal number of routes");
+        if(routes.length == 0) {
+            throw new IllegalArgumentException("Invalid number of routes");
+        }
+        if(threads < 1) {
+            throw new IllegalArgumentException("Invalid number of threads: "+threads);
+        }
+        this.routes = routes;
+        this.layout = RouteLayout.of(routes);
+        this.threads = Math.min(threads, routes.length);
+        this.words = GossipBits.words(routes.length);
+        this.gossip = GossipBits.initial(routes.length);
+
+        driverStart = new int[this.threads + 1];
+        for(int w = 0; w <= this.threads; ++w) {
+            driverStart[w] = (int) ((long) routes.length * w / this.threads);
+        }
+        // contiguous ranges of dense stops with about the same number of visits each
+        int[] visits = new int[layout.stopCount];
+        for(int stop : layout.stops) {
+            ++visits[stop];
+        }
+        stopOwner = new int[layout.stopCount];
+        long seen = 0;
+        for(int s = 0; s < layout.stopCount; ++s) {
+            stopOwner[s] = (int) Math.min(this.threads - 1, seen * this.threads / layout.stops.length);
+            seen += visits[s];
+        }
+        int[] owned = new int[this.threads];
+        for(int s = 0; s < layout.stopCount; ++s) {
+            ++owned[stopOwner[s]];
+        }
+
+        location = new int[routes.length];
+        stopOf = new int[routes.length];
+        boxed = new int[routes.length];
+        boxStart = new int[this.threads][this.threads + 1];
+        boxFill = new int[this.threads][this.threads];
+        stopHead = new int[layout.stopCount];
+        Arrays.fill(stopHead, -1);
+        nextAtStop = new int[routes.length];
+        touchedStops = new int[this.threads][];
+        for(int w = 0; w < this.threads; ++w) {
+            touchedStops[w] = new int[owned[w]];
+        }
+        changed = new boolean[this.threads];
+        complete = new boolean[this.threads];
+    }
+
+    // evaluates the routes, writing the result to the output writer (if any)
+    public ParallelGossip eval() {
+        // only eval once
+        if(result == null) {
+            result = simulate();
+        }
+        if(outputWriter != null) {
+            outputWriter.println(result);
+        }
+        return this;
+    }
+
+    // result of the evaluation, or null if not eval'ed yet
+    public String getResult() {
+        return result;
+    }
+
+    // minute at which the result was decided, or -1 if not eval'ed yet (same as Gossip.getFinalTick)
+    public int getFinalTick() {
+        return finalTick;
+    }
+
+    private String simulate() {
+        // same pre-checks as Gossip, so the final tick agrees as well
+        StopGraph graph = new StopGraph(layout);
+        lowerBound = graph.isConnected() ? Math.max(1, graph.diameterLowerBound()) : Integer.MAX_VALUE;
+        if(lowerBound > horizon + 1L) {
+            finalTick = 0;
+            return "never";
+        }
+        allGossip = new long[words];
+        GossipBits.union(gossip, routes.length, allGossip);
+        period = RouteMath.period(routes, horizon);
+        mins = -1;
+        lastChange = -1;
+        done = false;
+        failure = null;
+
+        // even phases end with phase 1 (boxed), odd ones with phase 2 (merged). A failing worker terminates the phaser,
+        // which releases the workers waiting now and every later arrival, so nobody waits for the failed one
+        Phaser barrier = new Phaser(threads) {
+            @Override
+            protected boolean onAdvance(int phase, int parties) {
+                if(phase % 2 == 0) {
+                    try {
+                        decide();
+                    } catch(RuntimeException | Error ex) {
+                        failure = ex;
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+        Thread[] workers = new Thread[threads - 1];
+        for(int w = 1; w < threads; ++w) {
+            final int worker = w;
+            workers[w - 1] = new Thread(() -> work(worker, barrier), "gossip-worker-" + w);
+            workers[w - 1].setDaemon(true);
+            workers[w - 1].start();
+        }
+        work(0, barrier);
+        for(Thread worker : workers) {
+            try {
+                worker.join();
+            } catch(InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted", ex);
+            }
+        }
+        if(failure != null) {
+            throw new IllegalStateException("Worker failed: " + failure, failure);
+        }
+        return result;
+    }
+
+    // barrier action: decides minute 'mins' once its merge is done and every worker has checked its drivers
+    private void decide() {
+        if(mins >= 0) {
+            for(int w = 0; w < threads; ++w) {
+                if(changed[w]) {
+                    lastChange = mins;
+                }
+            }
+            finalTick = mins;
+            boolean allComplete = true;
+            for(int w = 0; w < threads; ++w) {
+                allComplete &= complete[w];
+            }
+            if(mins + 1 >= lowerBound && allComplete) {
+                result = (mins + 1) + "";
+                done = true;
+            } else if(0 < period && mins - lastChange >= period || mins == horizon) {
+                result = "never";
+                done = true;
+            }
+        }
+        ++mins;
+    }
+
+    private void work(int w, Phaser barrier) {
+        try {
+            final int first = driverStart[w];
+            final int last = driverStart[w + 1];
+            for(int minute = 0; ; ++minute) {
+                // phase 1: check and move the drivers of the previous minute, then box them by stop owner
+                if(minute > 0) {
+                    complete[w] = allKnow(first, last);
+                    for(int i = first; i < last; ++i) {
+                        if(++location[i] == layout.lengths[i]) {
+                            location[i] = 0;
+                        }
+                    }
+                }
+                if(w == failingWorker) {
+                    throw new IllegalStateException("Worker " + w + " failed on purpose");
+                }
+                box(w, first, last);
+                // a negative phase means the phaser was terminated: another worker failed
+                if(barrier.arriveAndAwaitAdvance() < 0 || done || failure != null) {
+                    return;
+                }
+                // phase 2: merge the groups at the stops this worker owns
+                changed[w] = merge(w);
+                if(barrier.arriveAndAwaitAdvance() < 0) {
+                    return;
+                }
+            }
+        } catch(RuntimeException | Error ex) {
+            if(failure == null) {
+                failure = ex;
+            }
+            barrier.forceTermination();
+        }
+    }
+
+    private boolean allKnow(int first, int last) {
+        for(int i = first; i < last; ++i) {
+            for(int w = 0; w < words; ++w) {
+                if(gossip[i * words + w] != allGossip[w]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // counting sort of the worker's drivers by the owner of their current stop
+    private void box(int w, int first, int last) {
+        final int[] start = boxStart[w];
+        final int[] fill = boxFill[w];
+        Arrays.fill(start, 0);
+        for(int i = first; i < last; ++i) {
+            int stop = layout.stops[layout.offsets[i] + location[i]];
+            stopOf[i] = stop;
+            ++start[stopOwner[stop] + 1];
+        }
+        for(int o = 0; o < threads; ++o) {
+            start[o + 1] += start[o];
+        }
+        System.arraycopy(start, 0, fill, 0, threads);
+        for(int i = first; i < last; ++i) {
+            boxed[first + fill[stopOwner[stopOf[i]]]++] = i;
+        }
+    }
+
+    // groups the drivers boxed for worker o by stop and merges each group, same as Gossip.exchangeGossip
+    private boolean merge(int o) {
+        boolean anyChanged = false;
+        final int[] touched = touchedStops[o];
+        int count = 0;
+        for(int w = 0; w < threads; ++w) {
+            final int base = driverStart[w];
+            for(int k = boxStart[w][o]; k < boxStart[w][o + 1]; ++k) {
+                int i = boxed[base + k];
+                int stop = stopOf[i];
+                if(stopHead[stop] == -1) {
+                    touched[count++] = stop;
+                }
+                nextAtStop[i] = stopHead[stop];
+                stopHead[stop] = i;
+            }
+        }
+        for(int k = 0; k < count; ++k) {
+            int head = stopHead[touched[k]];
+            stopHead[touched[k]] = -1;
+            if(nextAtStop[head] == -1) {
+                continue; // driver is alone at this stop
+            }
+            boolean groupChanged = false;
+            for(int i = nextAtStop[head]; i != -1; i = nextAtStop[i]) {
+                groupChanged |= !GossipBits.same(gossip, head, i, words);
+                GossipBits.or(gossip, head, i, words);
+            }
+            if(groupChanged) {
+                anyChanged = true;
+                for(int i = nextAtStop[head]; i != -1; i = nextAtStop[i]) {
+                    GossipBits.copy(gossip, i, head, words);
+                }
+            }
+        }
+        return anyChanged;
+    }
+
+    // last minute to simulate before giving up with "never"
+    public ParallelGossip setHorizon(int horizon) {
+        if(horizon < 0) {
+            throw new IllegalArgumentException("Invalid horizon: "+horizon);
+        }
+        this.horizon = horizon;
+        return this;
+    }
+
+    public ParallelGossip setOutputWriter(PrintWriter outputWriter) {
+        this.outputWriter = outputWriter;
+        return this;
+    }
+}
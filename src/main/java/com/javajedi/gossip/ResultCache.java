@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Bounded LRU cache of results, keyed by the canonical form of a route set (see Key).
+ *
+ * Notes:
+ *   Threadsafe. Guarded by a ReentrantLock rather than synchronized, so virtual threads waiting for it don't pin
+ *   their carrier thread
+ */
+final class ResultCache {
+
+    private final int capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<Key, String> results;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    ResultCache(int capacity) {
+        if(capacity < 0) {
+            throw new IllegalArgumentException("Invalid cache size: "+capacity);
+        }
+        this.capacity = capacity;
+        this.results = new LinkedHashMap<Key, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+                return size() > ResultCache.this.capacity;
+            }
+        };
+    }
+
+    // the cached result, null on a miss
+    String get(Key key) {
+        lock.lock();
+        try {
+            String result = results.get(key);
+            (result != null ? hits : misses).increment();
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void put(Key key, String result) {
+        lock.lock();
+        try {
+            results.put(key, result);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return results.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * A route set with the settings that decide its result. The routes are sorted, so the key doesn't depend on the
+     * order of the drivers (results don't either). The 64 bit hash is computed once, equals compares the routes.
+     */
+    static final class Key {
+
+        private final int[] offsets;     // the routes in sorted order, flat as in a RouteTable
+        private final int[] stops;
+        private final GossipRule rule;
+        private final int horizon;
+        private final long hash;
+
+        Key(int[][] routes, GossipRule rule, int horizon) {
+            this(RouteTable.of(routes), rule, horizon);
+        }
+
+        Key(RouteTable table, GossipRule rule, int horizon) {
+            final int[] bounds = table.offsets();
+            final int[] source = table.stops();
+            Integer[] order = new Integer[table.drivers()];
+            for(int i = 0; i < order.length; ++i) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Arrays.compare(source, bounds[a], bounds[a + 1], source, bounds[b], bounds[b + 1]));
+            this.offsets = new int[order.length + 1];
+            this.stops = new int[source.length];
+            for(int k = 0; k < order.length; ++k) {
+                int i = order[k];
+                System.arraycopy(source, bounds[i], stops, offsets[k], bounds[i + 1] - bounds[i]);
+                offsets[k + 1] = offsets[k] + bounds[i + 1] - bounds[i];
+            }
+            this.rule = rule;
+            this.horizon = horizon;
+            long h = 0xcbf29ce484222325L ^ rule.ordinal() * 31L ^ (long) horizon << 32;
+            for(int k = 0; k < order.length; ++k) {
+                h = mix(h, offsets[k + 1] - offsets[k]);
+                for(int x = offsets[k]; x < offsets[k + 1]; ++x) {
+                    h = mix(h, stops[x]);
+                }
+            }
+            this.hash = h;
+        }
+
+        private static long mix(long h, int value) {
+            h = (h ^ value) * 0x9E3779B97F4A7C15L;
+            return h ^ (h >>> 29);
+        }
+
+        long hash() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) {
+                return true;
+            }
+            if(!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && horizon == other.horizon && rule == other.rule
+                    && Arrays.equals(offsets, other.offsets) && Arrays.equals(stops, other.stops);
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+}
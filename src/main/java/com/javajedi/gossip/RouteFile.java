@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Binary route file: a RouteTable as it sits in memory, so loading is little more than a memory-map.
+ *
+ * Layout (little endian):
+ *   int   magic 'GSRT'
+ *   int   version (1)
+ *   int   flags, bit 0 set if varint encoded
+ *   int   number of routes n
+ *   int   number of stops of all routes together
+ *   fixed:  int[n+1] route offsets, then int[] stops
+ *   varint: n route lengths (unsigned LEB128), then the stops (zigzag LEB128)
+ * Varint files are smaller when stop ids are small, fixed files load faster.
+ */
+public final class RouteFile {
+
+    static final int MAGIC = 'G' | 'S' << 8 | 'R' << 16 | 'T' << 24;
+    static final int VERSION = 1;
+    static final int FLAG_VARINT = 1;
+    private static final int HEADER = 5 * 4;
+
+    private RouteFile() {}
+
+    public static void write(RouteTable table, Path file, boolean varint) throws IOException {
+        final int[] offsets = table.offsets();
+        final int[] stops = table.stops();
+        final int routes = table.drivers();
+        long size = HEADER;
+        if(varint) {
+            for(int i = 0; i < routes; ++i) {
+                size += varintSize(offsets[i + 1] - offsets[i]);
+            }
+            for(int stop : stops) {
+                size += varintSize(zigzag(stop));
+            }
+        } else {
+            size += 4L * (offsets.length + stops.length);
+        }
+        if(size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("routes too large for a binary route file");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(varint ? FLAG_VARINT : 0).putInt(routes).putInt(stops.length);
+        if(varint) {
+            for(int i = 0; i < routes; ++i) {
+                putVarint(buffer, offsets[i + 1] - offsets[i]);
+            }
+            for(int stop : stops) {
+                putVarint(buffer, zigzag(stop));
+            }
+        } else {
+            buffer.asIntBuffer().put(offsets).put(stops);
+        }
+        buffer.rewind();
+        try(FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while(buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    public static RouteTable read(Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if(channel.size() < HEADER) {
+                throw new IllegalArgumentException("not a binary route file: " + file);
+            }
+            if(channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("binary route file too large: " + file);
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if(buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("not a binary route file: " + file);
+            }
+            int version = buffer.getInt();
+            if(version != VERSION) {
+                throw new IllegalArgumentException("unsupported binary route file version " + version + ": " + file);
+            }
+            int flags = buffer.getInt();
+            int routes = buffer.getInt();
+            int total = buffer.getInt();
+            if(routes < 0 || total < 0 || routes > channel.size() || total > channel.size()) {
+                throw new IllegalArgumentException("corrupt binary route file: " + file);
+            }
+            int[] offsets = new int[routes + 1];
+            int[] stops = new int[total];
+            try {
+                if((flags & FLAG_VARINT) != 0) {
+                    for(int i = 0; i < routes; ++i) {
+                        offsets[i + 1] = offsets[i] + getVarint(buffer);
+                    }
+                    for(int k = 0; k < total; ++k) {
+                        stops[k] = unzigzag(getVarint(buffer));
+                    }
+                } else {
+                    // bulk copy straight out of the mapped file
+                    buffer.asIntBuffer().get(offsets).get(stops);
+                }
+            } catch(BufferUnderflowException ex) {
+                throw new IllegalArgumentException("truncated binary route file: " + file);
+            }
+            for(int i = 0; i < routes; ++i) {
+                if(offsets[i] > offsets[i + 1]) {
+                    throw new IllegalArgumentException("corrupt binary route file: " + file);
+                }
+            }
+            if(offsets[0] != 0 || offsets[routes] != total) {
+                throw new IllegalArgumentException("corrupt binary route file: " + file);
+            }
+            return new RouteTable(offsets, stops);
+        }
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while((value & ~0x7F) != 0) {
+            value >>>= 7;
+            ++size;
+        }
+        return size;
+    }
+
+    private static void putVarint(ByteBuffer buffer, int value) {
+        while((value & ~0x7F) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+        for(int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if(b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("corrupt varint in binary route file");
+    }
+}
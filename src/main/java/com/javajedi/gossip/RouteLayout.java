@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import java.util.Arrays;
+
+/*
+ * Routes compiled for the engines: one contiguous stop array with offset and length arrays (struct of arrays),
+ * and stop ids remapped to the dense range 0..stopCount-1.
+ *
+ * The stops of route i are stops[offsets[i] .. offsets[i] + lengths[i]). Dense stop ids let per-stop state live in
+ * plain arrays indexed by stop, no hashing needed while simulating. stopIds maps a dense id back to the original.
+ */
+final class RouteLayout {
+
+    final int drivers;
+    final int[] offsets;
+    final int[] lengths;
+    final int[] stops;
+    final int stopCount;
+    final int[] stopIds;
+
+    private RouteLayout(int[] offsets, int[] lengths, int[] stops, int stopCount, int[] stopIds) {
+        this.drivers = lengths.length;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.stops = stops;
+        this.stopCount = stopCount;
+        this.stopIds = stopIds;
+    }
+
+    static RouteLayout of(int[][] routes) {
+        int[] offsets = new int[routes.length];
+        int[] lengths = new int[routes.length];
+        int total = 0;
+        for(int i = 0; i < routes.length; ++i) {
+            offsets[i] = total;
+            lengths[i] = routes[i].length;
+            total += routes[i].length;
+        }
+        int[] stops = new int[total];
+        Interner interner = new Interner(total);
+        for(int i = 0; i < routes.length; ++i) {
+            for(int k = 0; k < routes[i].length; ++k) {
+                stops[offsets[i] + k] = interner.intern(routes[i][k]);
+            }
+        }
+        return new RouteLayout(offsets, lengths, stops, interner.size, Arrays.copyOf(interner.ids, interner.size));
+    }
+
+    // same, straight from a flat route table: interns its stops into a new flat array, builds no array per route
+    static RouteLayout of(RouteTable table) {
+        final int drivers = table.drivers();
+        final int[] bounds = table.offsets();
+        final int[] source = table.stops();
+        int[] offsets = Arrays.copyOf(bounds, drivers);
+        int[] lengths = new int[drivers];
+        for(int i = 0; i < drivers; ++i) {
+            lengths[i] = bounds[i + 1] - bounds[i];
+        }
+        int[] stops = new int[source.length];
+        Interner interner = new Interner(source.length);
+        for(int k = 0; k < source.length; ++k) {
+            stops[k] = interner.intern(source[k]);
+        }
+        return new RouteLayout(offsets, lengths, stops, interner.size, Arrays.copyOf(interner.ids, interner.size));
+    }
+
+    // the routes with their original stop ids, one array per route
+    int[][] toArray() {
+        int[][] routes = new int[drivers][];
+        for(int i = 0; i < drivers; ++i) {
+            routes[i] = new int[lengths[i]];
+            for(int k = 0; k < lengths[i]; ++k) {
+                routes[i][k] = stopIds[stops[offsets[i] + k]];
+            }
+        }
+        return routes;
+    }
+
+    // whether the routes have the stops of this layout, stop for stop
+    boolean matches(int[][] routes) {
+        if(routes.length != drivers) {
+            return false;
+        }
+        for(int i = 0; i < drivers; ++i) {
+            if(routes[i].length != lengths[i]) {
+                return false;
+            }
+            for(int k = 0; k < lengths[i]; ++k) {
+                if(routes[i][k] != stopIds[stops[offsets[i] + k]]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // the layout without the driver, sharing the stops (and dense ids) of this one
+    RouteLayout without(int driver) {
+        int[] offsets = new int[drivers - 1];
+        int[] lengths = new int[drivers - 1];
+        System.arraycopy(this.offsets, 0, offsets, 0, driver);
+        System.arraycopy(this.offsets, driver + 1, offsets, driver, drivers - driver - 1);
+        System.arraycopy(this.lengths, 0, lengths, 0, driver);
+        System.arraycopy(this.lengths, driver + 1, lengths, driver, drivers - driver - 1);
+        return new RouteLayout(offsets, lengths, stops, stopCount, stopIds);
+    }
+
+    // the layout with the driver's route starting at the given index, with the same dense ids as this one
+    RouteLayout rotated(int driver, int start) {
+        int[] stops = this.stops.clone();
+        int offset = offsets[driver];
+        int length = lengths[driver];
+        for(int k = 0; k < length; ++k) {
+            stops[offset + k] = this.stops[offset + (start + k) % length];
+        }
+        return new RouteLayout(offsets, lengths, stops, stopCount, stopIds);
+    }
+
+    // dense stop of the driver at the index of its route
+    int stop(int driver, int index) {
+        return stops[offsets[driver] + index];
+    }
+
+    /*
+     * Maps stop ids to dense ids in order of first appearance. Open addressing over int keys, so no boxing.
+     */
+    private static final class Interner {
+
+        private final int[] keys;
+        private final int[] values;    // dense id + 1, 0 for an empty slot
+        private final int mask;
+        final int[] ids;
+        int size = 0;
+
+        Interner(int capacity) {
+            int slots = Integer.highestOneBit(Math.max(4, capacity * 2 - 1)) << 1;
+            keys = new int[slots];
+            values = new int[slots];
+            mask = slots - 1;
+            ids = new int[Math.max(1, capacity)];
+        }
+
+        int intern(int stop) {
+            int slot = mix(stop) & mask;
+            while(values[slot] != 0) {
+                if(keys[slot] == stop) {
+                    return values[slot] - 1;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = stop;
+            values[slot] = size + 1;
+            ids[size] = stop;
+            return size++;
+        }
+
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
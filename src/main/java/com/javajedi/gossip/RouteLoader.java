@@ -0,0 +1,307 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/*
+ * Loads routes in the text format of GossipRunner -f straight from bytes into a RouteTable.
+ *
+ * Files are memory-mapped a window at a time and digits are parsed directly into growable int arrays, so there is
+ * no String, boxed Integer or per-route array along the way.
+ *
+ * Format:
+ *   each line that doesn't begin with a # is a route, holding comma-separated stops (integers, optionally signed),
+ *   with optional blanks around each stop
+ *   an empty line ends a scenario: next() returns one scenario at a time, load() expects exactly one
+ * Malformed input throws an IllegalArgumentException naming the line and column.
+ *
+ * Notes:
+ *   Not threadsafe
+ */
+public class RouteLoader implements Closeable {
+
+    private static final int WINDOW = 64 << 20; // bytes mapped at a time
+
+    private final FileChannel channel;  // null when reading from a buffer
+    private long mapped = 0;            // file position after the current window
+    private ByteBuffer buffer;
+    private int line = 1;               // position of the next byte, for error messages
+    private int column = 1;
+    private int scenarioLine = 0;       // first line of the last scenario returned by next()
+
+    // growable buffers of the scenario being parsed
+    private int[] offsets = new int[64];
+    private int[] stops = new int[1024];
+    private int routes = 0;
+    private int size = 0;
+
+    public RouteLoader(ByteBuffer buffer) {
+        this.channel = null;
+        this.buffer = buffer;
+    }
+
+    public RouteLoader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.buffer = ByteBuffer.allocate(0);
+    }
+
+    // loads the single scenario of the file
+    public static RouteTable load(Path file) throws IOException {
+        try(RouteLoader loader = new RouteLoader(file)) {
+            return loader.loadOne();
+        }
+    }
+
+    // parses the single scenario of the text
+    public static RouteTable parse(String text) {
+        return new RouteLoader(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8))).loadOne();
+    }
+
+    private RouteTable loadOne() {
+        RouteTable table = next();
+        if(table == null) {
+            throw new IllegalArgumentException("no routes");
+        }
+        int afterLine = line;
+        if(next() != null) {
+            throw new IllegalArgumentException("line " + (afterLine - 1) + ": unexpected empty line between routes");
+        }
+        return table;
+    }
+
+    // line on which the scenario last returned by next() starts
+    public int getScenarioLine() {
+        return scenarioLine;
+    }
+
+    // the next scenario (routes up to an empty line or the end), null at the end
+    public RouteTable next() {
+        routes = 0;
+        size = 0;
+        for(;;) {
+            // skip empty lines before the scenario
+            while(isBlankLine()) {
+                if(peek() == -1) {
+                    return null;
+                }
+                skipLine();
+            }
+            scenarioLine = line;
+            int b = peek();
+            while(b != -1) {
+                if(b == '#') {
+                    skipLine();
+                } else if(isBlankLine()) {
+                    skipLine();
+                    break; // end of scenario
+                } else {
+                    parseRoute();
+                }
+                b = peek();
+            }
+            if(routes > 0) {
+                return new RouteTable(Arrays.copyOf(offsets, routes + 1), Arrays.copyOf(stops, size));
+            }
+            // nothing but comments, try the next scenario
+        }
+    }
+
+    // skips the rest of the current scenario, e.g. after next() failed on malformed input
+    public void skipScenario() {
+        while(peek() != -1 && !isBlankLine()) {
+            skipLine();
+        }
+        skipLine();
+    }
+
+    // parses one line of comma-separated stops
+    private void parseRoute() {
+        int start = size;
+        for(;;) {
+            skipBlanks();
+            int b = peek();
+            if(b == -1 || b == '\n') {
+                if(size == start) {
+                    throw error("expected a stop");
+                }
+                break; // a trailing comma is tolerated
+            }
+            addStop(parseInt());
+            skipBlanks();
+            b = peek();
+            if(b == ',') {
+                read();
+            } else if(b != -1 && b != '\n') {
+                throw error("expected ',' but found '" + (char) b + "'");
+            } else {
+                break;
+            }
+        }
+        if(peek() == '\n') {
+            read();
+        }
+        if(routes + 2 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[++routes] = size;
+    }
+
+    private int parseInt() {
+        int errorLine = line;
+        int errorColumn = column;
+        boolean negative = false;
+        int b = peek();
+        if(b == '-' || b == '+') {
+            negative = b == '-';
+            read();
+            b = peek();
+        }
+        if(b < '0' || b > '9') {
+            throw error(b == -1 || b == '\n' ? "expected a stop" : "expected a stop but found '" + (char) b + "'");
+        }
+        // digits straight from the buffer, a window at a time
+        long value = 0;
+        do {
+            int p = buffer.position();
+            final int limit = buffer.limit();
+            while(p < limit) {
+                int digit = buffer.get(p) - '0';
+                if(digit < 0 || digit > 9) {
+                    break;
+                }
+                value = value * 10 + digit;
+                if(value > Integer.MAX_VALUE + 1L) {
+                    throw new IllegalArgumentException("line " + errorLine + ", column " + errorColumn + ": stop out of range");
+                }
+                ++p;
+            }
+            column += p - buffer.position();
+            buffer.position(p);
+        } while(!buffer.hasRemaining() && map());
+        value = negative ? -value : value;
+        if(value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("line " + errorLine + ", column " + errorColumn + ": stop out of range");
+        }
+        return (int) value;
+    }
+
+    private void addStop(int stop) {
+        if(size == stops.length) {
+            stops = Arrays.copyOf(stops, stops.length * 2);
+        }
+        stops[size++] = stop;
+    }
+
+    // true if the rest of the current line is blank (also at the end of the input)
+    private boolean isBlankLine() {
+        int b = peek();
+        // blanks at the start of a line are only skipped if the line turns out to be blank
+        if(b != ' ' && b != '\t' && b != '\r') {
+            return b == '\n' || b == -1;
+        }
+        int p = buffer.position();
+        while(p < buffer.limit()) {
+            byte c = buffer.get(p++);
+            if(c == '\n') {
+                return true;
+            }
+            if(c != ' ' && c != '\t' && c != '\r') {
+                return false;
+            }
+        }
+        // the blanks reach the end of the window: skipping them is fine either way
+        skipBlanks();
+        return isBlankLine();
+    }
+
+    private void skipBlanks() {
+        int b = peek();
+        while(b == ' ' || b == '\t' || b == '\r') {
+            read();
+            b = peek();
+        }
+    }
+
+    // skips up to and including the end of the line
+    private void skipLine() {
+        int b;
+        while((b = read()) != -1 && b != '\n') {
+            // skip
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("line " + line + ", column " + column + ": " + message);
+    }
+
+    // next byte without consuming it, -1 at the end
+    private int peek() {
+        if(!buffer.hasRemaining() && !map()) {
+            return -1;
+        }
+        return buffer.get(buffer.position());
+    }
+
+    private int read() {
+        if(!buffer.hasRemaining() && !map()) {
+            return -1;
+        }
+        byte b = buffer.get();
+        if(b == '\n') {
+            ++line;
+            column = 1;
+        } else {
+            ++column;
+        }
+        return b;
+    }
+
+    // maps the next window of the file, false at its end
+    private boolean map() {
+        if(channel == null) {
+            return false;
+        }
+        try {
+            long remaining = channel.size() - mapped;
+            if(remaining <= 0) {
+                return false;
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapped, Math.min(remaining, WINDOW));
+            mapped += buffer.limit();
+            return true;
+        } catch(IOException ex) {
+            throw new IllegalStateException("cannot read routes: " + ex.getMessage(), ex);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(channel != null) {
+            channel.close();
+        }
+    }
+}
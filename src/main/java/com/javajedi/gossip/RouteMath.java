@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+/*
+ * Arithmetic on route lengths: drivers repeat their route, so every position is periodic.
+ */
+final class RouteMath {
+
+    private RouteMath() {}
+
+    static long gcd(long a, long b) {
+        while(b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    // least common multiple of a and b, or -1 if it is larger than cap
+    static long lcm(long a, long b, long cap) {
+        long l = a / gcd(a, b) * b;
+        return l > cap || l < 0 ? -1 : l;
+    }
+
+    // first t >= 0 with t = a (mod m) and t = b (mod n), or -1 if there is none (Chinese remainder theorem).
+    // The solutions repeat every lcm(m, n)
+    static long crt(long a, long m, long b, long n) {
+        long g = gcd(m, n);
+        long diff = b - a;
+        if(diff % g != 0) {
+            return -1;
+        }
+        long n_g = n / g;
+        // solve (m/g) * x = diff/g (mod n/g)
+        long x = Math.floorMod(Math.floorMod(diff / g, n_g) * inverse(Math.floorMod(m / g, n_g), n_g), n_g);
+        return Math.floorMod(a + m * x, m / g * n);
+    }
+
+    // modular inverse of a (mod m), a and m coprime
+    private static long inverse(long a, long m) {
+        if(m == 1) {
+            return 0;
+        }
+        // extended euclid
+        long old_r = a, r = m;
+        long old_s = 1, s = 0;
+        while(r != 0) {
+            long q = old_r / r;
+            long t = old_r - q * r;
+            old_r = r;
+            r = t;
+            t = old_s - q * s;
+            old_s = s;
+            s = t;
+        }
+        return Math.floorMod(old_s, m);
+    }
+
+    // period after which all drivers are back at their first stop (LCM of the route lengths),
+    // or -1 if the period is larger than cap
+    static long period(int[][] routes, long cap) {
+        long period = 1;
+        for(int[] route : routes) {
+            period = lcm(period, route.length, cap);
+            if(period < 0) {
+                return -1;
+            }
+        }
+        return period;
+    }
+
+    // same, from the route lengths
+    static long period(int[] lengths, long cap) {
+        long period = 1;
+        for(int length : lengths) {
+            period = lcm(period, length, cap);
+            if(period < 0) {
+                return -1;
+            }
+        }
+        return period;
+    }
+}
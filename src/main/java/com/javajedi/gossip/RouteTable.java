@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/*
+ * A route set stored flat: the stops of route i are stops[offsets[i] .. offsets[i+1]).
+ *
+ * Two int arrays instead of one array per route, so loading millions of stops doesn't allocate millions of objects.
+ */
+public final class RouteTable {
+
+    private final int[] offsets;
+    private final int[] stops;
+
+    RouteTable(int[] offsets, int[] stops) {
+        this.offsets = offsets;
+        this.stops = stops;
+    }
+
+    public static RouteTable of(final int[][] routes) {
+        Objects.requireNonNull(routes, "Illegal number of routes");
+        int[] offsets = new int[routes.length + 1];
+        for(int i = 0; i < routes.length; ++i) {
+            offsets[i + 1] = offsets[i] + routes[i].length;
+        }
+        int[] stops = new int[offsets[routes.length]];
+        for(int i = 0; i < routes.length; ++i) {
+            System.arraycopy(routes[i], 0, stops, offsets[i], routes[i].length);
+        }
+        return new RouteTable(offsets, stops);
+    }
+
+    public int drivers() {
+        return offsets.length - 1;
+    }
+
+    public int length(int driver) {
+        return offsets[driver + 1] - offsets[driver];
+    }
+
+    public int stop(int driver, int index) {
+        return stops[offsets[driver] + index];
+    }
+
+    // number of stops of all routes together
+    public int totalStops() {
+        return stops.length;
+    }
+
+    // one array per route, as the engines take them
+    public int[][] toArray() {
+        int[][] routes = new int[drivers()][];
+        for(int i = 0; i < routes.length; ++i) {
+            routes[i] = Arrays.copyOfRange(stops, offsets[i], offsets[i + 1]);
+        }
+        return routes;
+    }
+
+    int[] offsets() {
+        return offsets;
+    }
+
+    int[] stops() {
+        return stops;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import java.util.Arrays;
+
+/*
+ * The graph linking drivers that ever share a stop.
+ *
+ * Gossip can only travel between drivers that share a stop, and within one minute it can only travel one hop
+ * (drivers at the same stop at the same time are all linked to each other). So:
+ *   a disconnected graph means the result is "never"
+ *   the result is at least the graph's diameter, since somebody's gossip has to travel that far
+ */
+final class StopGraph {
+
+    private final int drivers;
+    private final int[] parent;      // union-find over drivers
+    private final int[] stopStart;   // drivers visiting dense stop s are stopDrivers[stopStart[s] .. stopStart[s+1])
+    private final int[] stopDrivers;
+    private final int[][] driverStops; // dense stops of each driver, without duplicates
+
+    StopGraph(RouteLayout layout) {
+        drivers = layout.drivers;
+        parent = new int[drivers];
+        for(int i = 0; i < drivers; ++i) {
+            parent[i] = i;
+        }
+        // link each driver with the first driver seen at each of its stops
+        final int stopCount = layout.stopCount;
+        int[] firstDriver = new int[stopCount];
+        Arrays.fill(firstDriver, -1);
+        driverStops = new int[drivers][];
+        for(int i = 0; i < drivers; ++i) {
+            int[] stops = Arrays.copyOfRange(layout.stops, layout.offsets[i], layout.offsets[i] + layout.lengths[i]);
+            for(int stop : stops) {
+                if(firstDriver[stop] == -1) {
+                    firstDriver[stop] = i;
+                } else {
+                    union(firstDriver[stop], i);
+                }
+            }
+            Arrays.sort(stops);
+            int unique = 0;
+            for(int k = 0; k < stops.length; ++k) {
+                if(unique == 0 || stops[unique - 1] != stops[k]) {
+                    stops[unique++] = stops[k];
+                }
+            }
+            driverStops[i] = Arrays.copyOf(stops, unique);
+        }
+        // invert driver -> stops into stop -> drivers
+        stopStart = new int[stopCount + 1];
+        for(int[] stops : driverStops) {
+            for(int stop : stops) {
+                ++stopStart[stop + 1];
+            }
+        }
+        for(int s = 0; s < stopCount; ++s) {
+            stopStart[s + 1] += stopStart[s];
+        }
+        stopDrivers = new int[stopStart[stopCount]];
+        int[] fill = Arrays.copyOf(stopStart, stopCount);
+        for(int i = 0; i < drivers; ++i) {
+            for(int stop : driverStops[i]) {
+                stopDrivers[fill[stop]++] = i;
+            }
+        }
+    }
+
+    private int find(int i) {
+        while(parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private void union(int a, int b) {
+        parent[find(a)] = find(b);
+    }
+
+    // true if every driver's gossip can, in principle, reach every other driver
+    boolean isConnected() {
+        int root = find(0);
+        for(int i = 1; i < drivers; ++i) {
+            if(find(i) != root) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // lower bound of the graph's diameter (double sweep: the eccentricity of the driver farthest from driver 0).
+    // Only meaningful for a connected graph
+    int diameterLowerBound() {
+        int[] distance = new int[drivers];
+        int far = bfs(0, distance);
+        return distance[bfs(far, distance)];
+    }
+
+    // breadth first search over drivers, hopping via shared stops. Returns the driver farthest from the start
+    private int bfs(int start, int[] distance) {
+        Arrays.fill(distance, -1);
+        boolean[] stopSeen = new boolean[stopStart.length - 1];
+        int[] queue = new int[drivers];
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        distance[start] = 0;
+        int far = start;
+        while(head < tail) {
+            int i = queue[head++];
+            far = i;
+            for(int stop : driverStops[i]) {
+                if(stopSeen[stop]) {
+                    continue;
+                }
+                stopSeen[stop] = true;
+                for(int k = stopStart[stop]; k < stopStart[stop + 1]; ++k) {
+                    int j = stopDrivers[k];
+                    if(distance[j] == -1) {
+                        distance[j] = distance[i] + 1;
+                        queue[tail++] = j;
+                    }
+                }
+            }
+        }
+        return far;
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/*
+ * Who is where, when: answers occupancy questions straight from the routes, without simulating.
+ *
+ * Driver i is at stop routes[i][t % routes[i].length] at minute t, so each stop of a route is a visit
+ * (driver, residue, period) that repeats every period minutes. The visits of each stop are grouped by period and sorted
+ * by residue, so the drivers at a stop at minute t are found with one binary search per distinct period at that stop.
+ *
+ * Queries:
+ *   driversAt(stop, t): the drivers at the stop at minute t
+ *   nextMeeting(a, b, t): the first minute >= t at which drivers a and b share a stop (chinese remainder theorem)
+ *   occupancy(t): every occupied stop with its drivers at minute t
+ * Minutes are those of the simulation: every driver is at its first stop at minute 0.
+ *
+ * Notes:
+ *   Immutable and threadsafe, build it once and query it from anywhere
+ *   Memory is linear in the number of stops of all routes together
+ */
+public final class StopIndex {
+
+    private final RouteLayout layout;
+    private final int[] sortedIds;     // original stop ids, ascending
+    private final int[] sortedDense;   // dense id of sortedIds[k]
+
+    // visits of dense stop s are groups stopGroups[s] .. stopGroups[s+1]), group g holds the visits
+    // groupVisits[g] .. groupVisits[g+1]) which all have period groupPeriod[g], sorted by residue (then driver)
+    private final int[] stopGroups;
+    private final int[] groupPeriod;
+    private final int[] groupVisits;
+    private final int[] visitDriver;
+    private final int[] visitResidue;
+
+    // visits of driver i are driverStop/driverResidue[offsets[i] .. offsets[i] + lengths[i]), sorted by stop
+    private final int[] driverStop;
+    private final int[] driverResidue;
+
+    public StopIndex(final int[][] routes) {
+        Objects.requireNonNull(routes, "Illegal number of routes");
+        if(routes.length == 0) {
+            throw new IllegalArgumentException("Invalid number of routes");
+        }
+        layout = RouteLayout.of(routes);
+        final int drivers = layout.drivers;
+        final int stops = layout.stopCount;
+        final int visits = layout.stops.length;
+
+        sortedIds = layout.stopIds.clone();
+        Arrays.sort(sortedIds);
+        sortedDense = new int[stops];
+        for(int s = 0; s < stops; ++s) {
+            sortedDense[Arrays.binarySearch(sortedIds, layout.stopIds[s])] = s;
+        }
+
+        // drivers by route length, so that filling the stops period by period, residue by residue, driver by driver
+        // leaves the visits of every stop in (period, residue, driver) order
+        long[] byLength = new long[drivers];
+        for(int i = 0; i < drivers; ++i) {
+            byLength[i] = (long) layout.lengths[i] << 32 | i;
+        }
+        Arrays.sort(byLength);
+        int[] visitStart = new int[stops + 1];
+        for(int v = 0; v < visits; ++v) {
+            ++visitStart[layout.stops[v] + 1];
+        }
+        for(int s = 0; s < stops; ++s) {
+            visitStart[s + 1] += visitStart[s];
+        }
+        visitDriver = new int[visits];
+        visitResidue = new int[visits];
+        int[] fill = Arrays.copyOf(visitStart, stops);
+        for(int first = 0; first < drivers; ) {
+            final int length = (int) (byLength[first] >>> 32);
+            int last = first;
+            while(last < drivers && (int) (byLength[last] >>> 32) == length) {
+                ++last;
+            }
+            for(int r = 0; r < length; ++r) {
+                for(int k = first; k < last; ++k) {
+                    int i = (int) byLength[k];
+                    int v = fill[layout.stop(i, r)]++;
+                    visitDriver[v] = i;
+                    visitResidue[v] = r;
+                }
+            }
+            first = last;
+        }
+
+        // split the visits of each stop into runs of the same period
+        stopGroups = new int[stops + 1];
+        int groups = 0;
+        for(int s = 0; s < stops; ++s) {
+            for(int v = visitStart[s]; v < visitStart[s + 1]; ++v) {
+                if(v == visitStart[s] || period(v) != period(v - 1)) {
+                    ++groups;
+                }
+            }
+            stopGroups[s + 1] = groups;
+        }
+        groupPeriod = new int[groups];
+        groupVisits = new int[groups + 1];
+        int g = 0;
+        for(int s = 0; s < stops; ++s) {
+            for(int v = visitStart[s]; v < visitStart[s + 1]; ++v) {
+                if(v == visitStart[s] || period(v) != period(v - 1)) {
+                    groupPeriod[g] = period(v);
+                    groupVisits[g++] = v;
+                }
+            }
+        }
+        groupVisits[groups] = visits;
+
+        // the same visits per driver, in stop order, for meetings
+        driverStop = new int[visits];
+        driverResidue = new int[visits];
+        int[] next = Arrays.copyOf(layout.offsets, drivers);
+        for(int s = 0; s < stops; ++s) {
+            for(int v = visitStart[s]; v < visitStart[s + 1]; ++v) {
+                int k = next[visitDriver[v]]++;
+                driverStop[k] = s;
+                driverResidue[k] = visitResidue[v];
+            }
+        }
+    }
+
+    private int period(int visit) {
+        return layout.lengths[visitDriver[visit]];
+    }
+
+    public int drivers() {
+        return layout.drivers;
+    }
+
+    // dense id of the stop, -1 if no route visits it
+    private int dense(int stop) {
+        int k = Arrays.binarySearch(sortedIds, stop);
+        return k < 0 ? -1 : sortedDense[k];
+    }
+
+    private static void checkMinute(long minute) {
+        if(minute < 0) {
+            throw new IllegalArgumentException("Invalid minute: "+minute);
+        }
+    }
+
+    private void checkDriver(int driver) {
+        if(driver < 0 || driver >= layout.drivers) {
+            throw new IllegalArgumentException("Invalid driver: "+driver);
+        }
+    }
+
+    // stop of the driver at the minute
+    public int stopOf(int driver, long minute) {
+        checkDriver(driver);
+        checkMinute(minute);
+        return layout.stopIds[layout.stop(driver, (int) (minute % layout.lengths[driver]))];
+    }
+
+    // the drivers at the stop at the minute, ascending
+    public int[] driversAt(int stop, long minute) {
+        int[] drivers = new int[layout.drivers];
+        int count = driversAt(stop, minute, drivers);
+        drivers = Arrays.copyOf(drivers, count);
+        Arrays.sort(drivers);
+        return drivers;
+    }
+
+    // writes the drivers at the stop at the minute (in no particular order) to into, which must have room for all
+    // drivers in the worst case. Returns how many there are
+    public int driversAt(int stop, long minute, int[] into) {
+        checkMinute(minute);
+        int s = dense(stop);
+        if(s < 0) {
+            return 0;
+        }
+        int count = 0;
+        for(int g = stopGroups[s]; g < stopGroups[s + 1]; ++g) {
+            final int residue = (int) (minute % groupPeriod[g]);
+            final int end = groupVisits[g + 1];
+            // first visit of the group with this residue
+            int lo = groupVisits[g], hi = end;
+            while(lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if(visitResidue[mid] < residue) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            for(int v = lo; v < end && visitResidue[v] == residue; ++v) {
+                into[count++] = visitDriver[v];
+            }
+        }
+        return count;
+    }
+
+    // first minute >= from at which drivers a and b are at the same stop, -1 if they never meet again
+    public long nextMeeting(int a, int b, long from) {
+        checkDriver(a);
+        checkDriver(b);
+        checkMinute(from);
+        if(a == b) {
+            return from;
+        }
+        final long la = layout.lengths[a];
+        final long lb = layout.lengths[b];
+        final long step = la / RouteMath.gcd(la, lb) * lb;
+        long next = -1;
+        // merge the visits of both drivers by stop, every pair of visits of the same stop is a progression of meetings
+        int x = layout.offsets[a], xEnd = x + layout.lengths[a];
+        int y = layout.offsets[b], yEnd = y + layout.lengths[b];
+        while(x < xEnd && y < yEnd) {
+            if(driverStop[x] < driverStop[y]) {
+                ++x;
+            } else if(driverStop[x] > driverStop[y]) {
+                ++y;
+            } else {
+                final int stop = driverStop[x];
+                int yStart = y;
+                for(; x < xEnd && driverStop[x] == stop; ++x) {
+                    for(y = yStart; y < yEnd && driverStop[y] == stop; ++y) {
+                        long first = RouteMath.crt(driverResidue[x], la, driverResidue[y], lb);
+                        if(first < 0) {
+                            continue; // never there at the same time
+                        }
+                        // first meeting of the progression from then on, t < from if that overflows
+                        long t = from + Math.floorMod(first - from, step);
+                        if(t >= from && (next < 0 || t < next)) {
+                            next = t;
+                        }
+                    }
+                }
+            }
+        }
+        return next;
+    }
+
+    // every occupied stop with its drivers at the minute. Buckets the drivers by stop with a counting pass: linear in
+    // the number of drivers plus the number of distinct stops, no sorting
+    public Occupancy occupancy(long minute) {
+        checkMinute(minute);
+        final int drivers = layout.drivers;
+        int[] at = new int[drivers];            // dense stop of each driver
+        int[] slot = new int[layout.stopCount]; // dense stop -> its index among the occupied stops + 1, 0 if empty
+        int[] stops = new int[drivers];
+        int[] starts = new int[drivers + 1];
+        int count = 0;
+        for(int i = 0; i < drivers; ++i) {
+            int s = layout.stop(i, (int) (minute % layout.lengths[i]));
+            at[i] = s;
+            if(slot[s] == 0) {
+                stops[count] = layout.stopIds[s];
+                slot[s] = ++count;
+            }
+            ++starts[slot[s]];
+        }
+        for(int k = 0; k < count; ++k) {
+            starts[k + 1] += starts[k];
+        }
+        // drivers in ascending order within each stop, each filling its stop's range from the start
+        int[] fill = Arrays.copyOf(starts, count);
+        int[] byStop = new int[drivers];
+        for(int i = 0; i < drivers; ++i) {
+            byStop[fill[slot[at[i]] - 1]++] = i;
+        }
+        return new Occupancy(minute, Arrays.copyOf(stops, count), Arrays.copyOf(starts, count + 1), byStop);
+    }
+
+    /*
+     * The occupied stops at one minute, in order of their lowest driver, each with its drivers in ascending order.
+     */
+    public static final class Occupancy {
+
+        private final long minute;
+        private final int[] stops;
+        private final int[] starts;    // drivers at stops[k] are drivers[starts[k] .. starts[k+1])
+        private final int[] drivers;
+
+        private Occupancy(long minute, int[] stops, int[] starts, int[] drivers) {
+            this.minute = minute;
+            this.stops = stops;
+            this.starts = starts;
+            this.drivers = drivers;
+        }
+
+        public long getMinute() {
+            return minute;
+        }
+
+        // number of occupied stops
+        public int size() {
+            return stops.length;
+        }
+
+        public int stop(int k) {
+            return stops[k];
+        }
+
+        // number of drivers at the k-th occupied stop
+        public int count(int k) {
+            return starts[k + 1] - starts[k];
+        }
+
+        public int[] drivers(int k) {
+            return Arrays.copyOfRange(drivers, starts[k], starts[k + 1]);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder().append("minute ").append(minute).append(':');
+            for(int k = 0; k < stops.length; ++k) {
+                text.append(' ').append(stops[k]).append('=').append(Arrays.toString(drivers(k)));
+            }
+            return text.toString();
+        }
+    }
+}
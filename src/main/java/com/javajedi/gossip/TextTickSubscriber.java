@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import java.io.PrintStream;
+import java.util.concurrent.Flow;
+
+/*
+ * Prints every tick in the text format of Gossip -d (see GossipTick.render).
+ */
+public class TextTickSubscriber implements Flow.Subscriber<GossipTick> {
+
+    private final PrintStream out;
+
+    public TextTickSubscriber(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(GossipTick tick) {
+        out.print(tick.render());
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        out.println("Error: " + throwable.getMessage());
+    }
+
+    @Override
+    public void onComplete() {
+        out.flush();
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Publishes the ticks (GossipTick) of simulations to Flow subscribers, on the subscribers' executor, with a bounded
+ * buffer per subscriber. Set it on a Gossip with setTickPublisher, one publisher can serve many evaluations.
+ *
+ * What happens when a subscriber falls behind depends on the policy:
+ *   DROP: ticks that don't fit a subscriber's buffer are dropped for that subscriber (counted by getDropped), the
+ *   simulation never waits. Only when every subscriber's buffer is full, the tick isn't even taken (counted by
+ *   getSkipped)
+ *   SAMPLE: only every sampleEvery'th minute is published, and the last minute of each evaluation. Waits for buffer
+ *   space, the sampling keeps that rare
+ *   BLOCK: every tick is published, the simulation waits for buffer space
+ * The simulation only takes a tick (copies its state) when it will be published, so an observed simulation only pays
+ * for what is delivered, and an unobserved one not at all.
+ *
+ * Notes:
+ *   Threadsafe, several simulations may publish at the same time (ticks of different evaluations then interleave)
+ *   With a direct executor (Runnable::run) subscribers run on the simulation's thread, synchronously: that is how
+ *   Gossip -d prints (see TextTickSubscriber)
+ */
+public class TickPublisher implements Flow.Publisher<GossipTick>, AutoCloseable {
+
+    public enum Policy { DROP, SAMPLE, BLOCK }
+
+    public static final int DEFAULT_BUFFER = 256;
+
+    private final SubmissionPublisher<GossipTick> publisher;
+    private final List<Lagging> subscribers = new CopyOnWriteArrayList<>();
+    private Policy policy = Policy.DROP;
+    private int sampleEvery = 1;
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    // buffer: ticks each subscriber may lag behind, rounded up to a power of two
+    public TickPublisher(Executor executor, int buffer) {
+        if(buffer < 1) {
+            throw new IllegalArgumentException("Invalid buffer: "+buffer);
+        }
+        this.publisher = new SubmissionPublisher<>(executor, buffer);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super GossipTick> subscriber) {
+        // counted before subscribing: with a direct executor, onSubscribe may already cancel (and remove it)
+        Lagging lagging = new Lagging(subscriber);
+        subscribers.add(lagging);
+        publisher.subscribe(lagging);
+    }
+
+    // true if the tick of the minute is to be published. 'last' is the minute that decided the result
+    boolean wants(int minute, boolean last) {
+        if(!publisher.hasSubscribers()) {
+            return false;
+        }
+        switch(policy) {
+            case SAMPLE:
+                return last || minute % sampleEvery == 0;
+            case DROP:
+                // SubmissionPublisher only tells the largest lag, one stalled subscriber must not starve the others
+                final int capacity = publisher.getMaxBufferCapacity();
+                for(Lagging subscriber : subscribers) {
+                    if(subscriber.queued.get() < capacity) {
+                        return true;
+                    }
+                }
+                skipped.increment(); // every subscriber is full, don't even take the tick
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    void publish(GossipTick tick) {
+        published.increment();
+        if(policy == Policy.DROP) {
+            for(Lagging subscriber : subscribers) {
+                subscriber.queued.incrementAndGet();
+            }
+            publisher.offer(tick, (subscriber, item) -> {
+                ((Lagging) subscriber).queued.decrementAndGet();
+                dropped.increment();
+                return false;
+            });
+        } else {
+            publisher.submit(tick);
+        }
+    }
+
+    public TickPublisher setPolicy(Policy policy) {
+        if(policy == null) {
+            throw new IllegalArgumentException("Invalid policy");
+        }
+        this.policy = policy;
+        return this;
+    }
+
+    // minutes between published ticks with the SAMPLE policy
+    public TickPublisher setSampleEvery(int sampleEvery) {
+        if(sampleEvery < 1) {
+            throw new IllegalArgumentException("Invalid sample interval: "+sampleEvery);
+        }
+        this.sampleEvery = sampleEvery;
+        return this;
+    }
+
+    // ticks published (offered, with DROP)
+    public long getPublished() {
+        return published.sum();
+    }
+
+    // ticks published with DROP but not delivered, once per subscriber that missed them
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    // ticks not even taken with DROP, because every subscriber was full (not counted by getDropped)
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    public int getNumberOfSubscribers() {
+        return publisher.getNumberOfSubscribers();
+    }
+
+    // completes the subscribers once they have consumed what was published
+    @Override
+    public void close() {
+        publisher.close();
+    }
+
+    /*
+     * Passes ticks on to a subscriber, counting the ticks offered to it that it hasn't received yet (its buffer).
+     * Stops being counted once the subscriber is done or cancels.
+     */
+    private final class Lagging implements Flow.Subscriber<GossipTick> {
+
+        private final Flow.Subscriber<? super GossipTick> subscriber;
+        final AtomicLong queued = new AtomicLong();
+
+        Lagging(Flow.Subscriber<? super GossipTick> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    subscription.request(n);
+                }
+
+                @Override
+                public void cancel() {
+                    subscribers.remove(Lagging.this);
+                    subscription.cancel();
+                }
+            });
+        }
+
+        @Override
+        public void onNext(GossipTick tick) {
+            queued.decrementAndGet();
+            subscriber.onNext(tick);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            subscribers.remove(this);
+            subscriber.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            subscribers.remove(this);
+            subscriber.onComplete();
+        }
+    }
+}
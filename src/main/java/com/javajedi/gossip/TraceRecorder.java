@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * Records a Gossip run into a compact binary trace, read back by TraceReplay.
+ *
+ * Only what changes is written: per minute the groups whose drivers learned something, and the drivers that stayed
+ * put. Positions follow from the routes in the header. A group is written once, as its members and the words of
+ * its merged gossip that somebody didn't know yet, rather than once per member. Values go straight into a byte buffer
+ * that is written out in large chunks, so tracing costs little more than the merges themselves.
+ *
+ * Layout (big endian):
+ *   int   magic 'GSTC'
+ *   int   version (1)
+ *   byte  GossipRule ordinal
+ *   int   number of drivers n, then per driver: int route length, int[] stops
+ *   long[n * words] initial gossip sets (see GossipBits)
+ *   per minute: byte TICK, int minute,
+ *               per changed group: int k (members), int[k] members, int c, c * (int word, long merged gossip),
+ *               int 0 (no more groups), int m, int[m] drivers that stay put
+ *   at the end: byte END, int final tick, int length, UTF-8 result
+ */
+final class TraceRecorder {
+
+    static final int MAGIC = 'G' << 24 | 'S' << 16 | 'T' << 8 | 'C';
+    static final int VERSION = 1;
+    static final byte TICK = 1;
+    static final byte END = 2;
+
+    private final OutputStream out;
+    private final int words;
+    private ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+
+    TraceRecorder(OutputStream out, int[][] routes, GossipRule rule, long[] gossip) {
+        this.out = out;
+        this.words = GossipBits.words(routes.length);
+        reserve(13);
+        buffer.putInt(MAGIC).putInt(VERSION).put((byte) rule.ordinal()).putInt(routes.length);
+        for(int[] route : routes) {
+            reserve(4 + 4 * route.length);
+            buffer.putInt(route.length);
+            for(int stop : route) {
+                buffer.putInt(stop);
+            }
+        }
+        for(int k = 0; k < routes.length * words; ++k) {
+            reserve(8);
+            buffer.putLong(gossip[k]);
+        }
+    }
+
+    // starts the minute, before its groups
+    void begin(int minute) {
+        reserve(5);
+        buffer.put(TICK).putInt(minute);
+    }
+
+    // records a group after merging: members[from] is the head holding the merged gossip, the others (and headBefore,
+    // the head's row before merging) still hold what they knew before
+    void group(long[] gossip, long[] headBefore, int[] members, int from, int to) {
+        final int head = members[from] * words;
+        reserve(8 + 4 * (to - from) + 12 * words);
+        buffer.putInt(to - from);
+        for(int k = from; k < to; ++k) {
+            buffer.putInt(members[k]);
+        }
+        final int countAt = buffer.position();
+        buffer.putInt(0);
+        int count = 0;
+        for(int w = 0; w < words; ++w) {
+            final long merged = gossip[head + w];
+            boolean learned = merged != headBefore[w];
+            for(int k = from + 1; !learned && k < to; ++k) {
+                learned = gossip[members[k] * words + w] != merged;
+            }
+            if(learned) {
+                buffer.putInt(w).putLong(merged);
+                ++count;
+            }
+        }
+        buffer.putInt(countAt, count);
+    }
+
+    // ends the minute, with the drivers that stay put
+    void end(int[] stayers, int stayerCount) {
+        reserve(8 + 4 * stayerCount);
+        buffer.putInt(0); // no more groups
+        buffer.putInt(stayerCount);
+        for(int k = 0; k < stayerCount; ++k) {
+            buffer.putInt(stayers[k]);
+        }
+    }
+
+    // writes the result and flushes. The underlying stream is left open
+    void finish(int finalTick, String result) {
+        byte[] text = result.getBytes(StandardCharsets.UTF_8);
+        reserve(9 + text.length);
+        buffer.put(END).putInt(finalTick).putInt(text.length).put(text);
+        flush();
+        try {
+            out.flush();
+        } catch(IOException ex) {
+            throw failed(ex);
+        }
+    }
+
+    // makes room for at least 'bytes' more, writing out what is buffered
+    private void reserve(int bytes) {
+        if(buffer.remaining() >= bytes) {
+            return;
+        }
+        flush();
+        if(buffer.capacity() < bytes) {
+            buffer = ByteBuffer.allocate(Math.max(bytes, buffer.capacity() * 2));
+        }
+    }
+
+    private void flush() {
+        try {
+            out.write(buffer.array(), 0, buffer.position());
+        } catch(IOException ex) {
+            throw failed(ex);
+        }
+        buffer.clear();
+    }
+
+    private static IllegalStateException failed(IOException ex) {
+        return new IllegalStateException("cannot write trace: " + ex.getMessage(), ex);
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/*
+ * Reads a binary trace written by Gossip.setTraceStream (see TraceRecorder) and rebuilds the state of every minute,
+ * e.g. to render it in the text format of Gossip -d, or to seek to one minute and inspect it.
+ *
+ * Usage:
+ *   while(replay.next()) { ... replay.render() ... }
+ * next() applies one minute after the other. seek() moves forward only, reopen the trace to go back.
+ *
+ * Notes:
+ *   Not threadsafe
+ */
+public class TraceReplay implements Closeable {
+
+    private final DataInputStream in;
+    private final GossipRule rule;
+    private final int[][] routes;
+    private final int words;
+    private final long[] gossip;
+    private final int[] location;
+    private final boolean[] staying;
+    private final int[] members;    // of the group being read
+    private int minute = -1;        // minute of the current state, -1 before the first
+    private int finalTick = -1;
+    private String result = null;   // known once the end is reached
+
+    public TraceReplay(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        try {
+            if(this.in.readInt() != TraceRecorder.MAGIC) {
+                throw new IllegalArgumentException("not a gossip trace");
+            }
+            int version = this.in.readInt();
+            if(version != TraceRecorder.VERSION) {
+                throw new IllegalArgumentException("unsupported gossip trace version " + version);
+            }
+            int ruleOrdinal = this.in.readByte();
+            if(ruleOrdinal < 0 || ruleOrdinal >= GossipRule.values().length) {
+                throw new IllegalArgumentException("corrupt gossip trace: unknown rule " + ruleOrdinal);
+            }
+            rule = GossipRule.values()[ruleOrdinal];
+            int drivers = this.in.readInt();
+            if(drivers <= 0) {
+                throw new IllegalArgumentException("corrupt gossip trace: " + drivers + " drivers");
+            }
+            routes = new int[drivers][];
+            for(int i = 0; i < drivers; ++i) {
+                int length = this.in.readInt();
+                if(length <= 0) {
+                    throw new IllegalArgumentException("corrupt gossip trace: route of length " + length);
+                }
+                routes[i] = new int[length];
+                for(int k = 0; k < length; ++k) {
+                    routes[i][k] = this.in.readInt();
+                }
+            }
+            words = GossipBits.words(drivers);
+            gossip = new long[drivers * words];
+            for(int k = 0; k < gossip.length; ++k) {
+                gossip[k] = this.in.readLong();
+            }
+        } catch(EOFException ex) {
+            throw new IllegalArgumentException("truncated gossip trace");
+        }
+        location = new int[routes.length];
+        staying = new boolean[routes.length];
+        members = new int[routes.length];
+    }
+
+    public static TraceReplay open(Path file) throws IOException {
+        return new TraceReplay(Files.newInputStream(file));
+    }
+
+    // applies the next minute, false at the end of the trace
+    public boolean next() throws IOException {
+        if(result != null) {
+            return false;
+        }
+        try {
+            byte tag = in.readByte();
+            if(tag == TraceRecorder.END) {
+                finalTick = in.readInt();
+                byte[] text = new byte[in.readInt()];
+                in.readFully(text);
+                result = new String(text, StandardCharsets.UTF_8);
+                return false;
+            }
+            if(tag != TraceRecorder.TICK) {
+                throw new IllegalArgumentException("corrupt gossip trace: unknown record " + tag);
+            }
+            // drivers move after each minute, except those that stay put
+            if(minute >= 0) {
+                for(int i = 0; i < routes.length; ++i) {
+                    if(!staying[i] && ++location[i] == routes[i].length) {
+                        location[i] = 0;
+                    }
+                }
+            }
+            minute = in.readInt();
+            // every member of a group learns the merged gossip
+            for(int k = in.readInt(); k > 0; k = in.readInt()) {
+                if(k > routes.length) {
+                    throw new IllegalArgumentException("corrupt gossip trace at minute " + minute);
+                }
+                for(int m = 0; m < k; ++m) {
+                    members[m] = readDriver();
+                }
+                for(int c = in.readInt(); c > 0; --c) {
+                    int word = in.readInt();
+                    long merged = in.readLong();
+                    if(word < 0 || word >= words) {
+                        throw new IllegalArgumentException("corrupt gossip trace at minute " + minute);
+                    }
+                    for(int m = 0; m < k; ++m) {
+                        gossip[members[m] * words + word] |= merged;
+                    }
+                }
+            }
+            Arrays.fill(staying, false);
+            for(int k = in.readInt(); k > 0; --k) {
+                staying[readDriver()] = true;
+            }
+            return true;
+        } catch(EOFException ex) {
+            throw new IllegalArgumentException("truncated gossip trace after minute " + minute);
+        }
+    }
+
+    private int readDriver() throws IOException {
+        int driver = in.readInt();
+        if(driver < 0 || driver >= routes.length) {
+            throw new IllegalArgumentException("corrupt gossip trace at minute " + minute);
+        }
+        return driver;
+    }
+
+    // applies minutes up to the given one. Returns false if the trace ends before
+    public boolean seek(int target) throws IOException {
+        if(target < minute) {
+            throw new IllegalStateException("cannot seek back from minute " + minute + " to " + target);
+        }
+        while(minute < target) {
+            if(!next()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // the current minute in the text format of Gossip -d
+    public String render() {
+        StringBuilder s = new StringBuilder("t = ").append(minute).append(System.lineSeparator());
+        for(int i = 0; i < routes.length; ++i) {
+            Gossip.appendDriver(s, routes, gossip, i, location[i], staying[i]);
+        }
+        return s.toString();
+    }
+
+    public GossipRule getRule() {
+        return rule;
+    }
+
+    public int[][] getRoutes() {
+        return routes;
+    }
+
+    // minute of the current state, -1 before the first call to next()
+    public int getMinute() {
+        return minute;
+    }
+
+    // 1 if the driver knows the gossip at the current minute, 0 otherwise
+    public int get(int driver, int gossip) {
+        return GossipBits.get(this.gossip, driver, words, gossip);
+    }
+
+    // current route position of the driver
+    public int getLocation(int driver) {
+        return location[driver];
+    }
+
+    // result of the traced evaluation, null until the end of the trace is reached
+    public String getResult() {
+        return result;
+    }
+
+    // minute at which the result was decided, -1 until the end of the trace is reached
+    public int getFinalTick() {
+        return finalTick;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
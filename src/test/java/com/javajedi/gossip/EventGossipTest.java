@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class EventGossipTest {
+
+    @Test
+    public void cannedRoutesMatchGossip() {
+        for(GossipRunner.CannedRoute canned : GossipRunner.CannedRoute.values()) {
+            assertSameAsGossip(canned.name(), canned.route, Gossip.DEFAULT_HORIZON);
+        }
+    }
+
+    @Test
+    public void singleRoute() {
+        EventGossip gossip = new EventGossip(new int[][] {{1,2,3}}).eval();
+        Assert.assertEquals("1", gossip.getResult());
+    }
+
+    @Test
+    public void sparseRoutesFarBeyondTheDay() {
+        // drivers only meet at stop 0, every 997 * 991 minutes
+        int[][] routes = new int[2][];
+        routes[0] = new int[997];
+        routes[1] = new int[991];
+        for(int k = 1; k < routes[0].length; ++k) {
+            routes[0][k] = k;
+        }
+        for(int k = 1; k < routes[1].length; ++k) {
+            routes[1][k] = -k;
+        }
+        routes[1][0] = 5;
+        routes[1][500] = 0;
+        assertSameAsGossip("sparse", routes, 2_000_000);
+    }
+
+    @Test
+    public void randomRoutesMatchGossip() {
+        Random random = new Random(42);
+        for(int run = 0; run < 500; ++run) {
+            int[][] routes = RandomRoutes.routes(random, 1 + random.nextInt(12), 2 + random.nextInt(40), 9);
+            assertSameAsGossip("run " + run, routes, random.nextInt(600));
+        }
+    }
+
+    private void assertSameAsGossip(String message, int[][] routes, int horizon) {
+        Gossip expected = new Gossip(routes).setHorizon(horizon).eval();
+        EventGossip actual = new EventGossip(routes).setHorizon(horizon).eval();
+        Assert.assertEquals(message, expected.getResult(), actual.getResult());
+        Assert.assertEquals(message, expected.getFinalTick(), actual.getFinalTick());
+    }
+}
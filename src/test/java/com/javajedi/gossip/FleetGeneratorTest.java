@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.fail;
+
+public class FleetGeneratorTest {
+
+    @Test
+    public void invalidParameters() {
+        try {
+            new FleetGenerator(1).setDrivers(0);
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+        try {
+            new FleetGenerator(1).setLengths(3, 2);
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+        try {
+            new FleetGenerator(1).setStops(0);
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+        try {
+            new FleetGenerator(1).setHubs(1, 1.5);
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+        try {
+            new FleetGenerator(1).setStops(3).setHubs(4, 0.5).scenario(0);
+            fail("should have thrown");
+        } catch( IllegalStateException ex) {}
+    }
+
+    @Test
+    public void deterministic() {
+        FleetGenerator generator = new FleetGenerator(7).setDrivers(20);
+        int[][] third = generator.scenario(3);
+        Assert.assertArrayEquals(third, new FleetGenerator(7).setDrivers(20).scenario(3));
+        Assert.assertFalse(Arrays.deepEquals(third, generator.scenario(4)));
+        Assert.assertFalse(Arrays.deepEquals(third, new FleetGenerator(8).setDrivers(20).scenario(3)));
+    }
+
+    @Test
+    public void scenariosAreNotShifted() {
+        // scenario k+1 must not be scenario k one draw later
+        FleetGenerator generator = new FleetGenerator(42).setDrivers(3).setLengths(4, 4);
+        for(int k = 0; k < 10; ++k) {
+            int[] route = generator.scenario(k)[0];
+            int[] next = generator.scenario(k + 1)[0];
+            Assert.assertFalse("scenario " + k, Arrays.equals(Arrays.copyOfRange(route, 1, 4), Arrays.copyOfRange(next, 0, 3)));
+        }
+    }
+
+    @Test
+    public void parameters() {
+        int[][] routes = new FleetGenerator(1).setDrivers(500).setLengths(2, 5).setStops(50).scenario(0);
+        Assert.assertEquals(500, routes.length);
+        int shortest = Integer.MAX_VALUE, longest = 0;
+        for(int[] route : routes) {
+            shortest = Math.min(shortest, route.length);
+            longest = Math.max(longest, route.length);
+            for(int stop : route) {
+                Assert.assertTrue("stop " + stop, 1 <= stop && stop <= 50);
+            }
+        }
+        Assert.assertEquals(2, shortest);
+        Assert.assertEquals(5, longest);
+        // only hubs
+        for(int[] route : new FleetGenerator(1).setStops(50).setHubs(3, 1).scenario(0)) {
+            for(int stop : route) {
+                Assert.assertTrue("stop " + stop, 1 <= stop && stop <= 3);
+            }
+        }
+    }
+
+    @Test
+    public void writesTextFormat() throws IOException {
+        FleetGenerator generator = new FleetGenerator(11).setDrivers(30).setLengths(1, 7).setStops(100000).setHubs(2, 0.3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        generator.write(out, 5, 3);
+        RouteLoader loader = new RouteLoader(ByteBuffer.wrap(out.toByteArray()));
+        for(int k = 5; k < 8; ++k) {
+            Assert.assertArrayEquals("scenario " + k, generator.scenario(k), loader.next().toArray());
+        }
+        Assert.assertNull(loader.next());
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+public class GossipArrivalsTest {
+
+    @Test
+    public void notRecordedByDefault() {
+        Assert.assertNull(new Gossip(GossipRunner.CannedRoute.ROUTE0.route).eval().getArrivals());
+    }
+
+    @Test
+    public void lastArrivalIsTheResult() {
+        for(GossipRunner.CannedRoute canned : GossipRunner.CannedRoute.values()) {
+            for(Gossip gossip : new Gossip[] {new Gossip(canned.route), new GossipBonus(canned.route)}) {
+                GossipArrivals arrivals = gossip.setRecordArrivals(true).eval().getArrivals();
+                int last = 0;
+                boolean complete = true;
+                for(int i = 0; i < arrivals.drivers(); ++i) {
+                    for(int g = 0; g < arrivals.drivers(); ++g) {
+                        last = Math.max(last, arrivals.arrival(i, g));
+                        complete &= arrivals.arrival(i, g) != GossipArrivals.NEVER;
+                    }
+                }
+                Assert.assertEquals(canned.name(), gossip.getResult(), complete ? last+"" : "never");
+                Assert.assertEquals(canned.name(), complete ? last : GossipArrivals.NEVER, arrivals.minuteInformed(1.0));
+            }
+        }
+    }
+
+    @Test
+    public void publishedTestNumberOne() {
+        GossipArrivals arrivals = new Gossip(GossipRunner.CannedRoute.ROUTE0.route).setRecordArrivals(true).eval()
+                .getArrivals();
+        Assert.assertEquals("own gossip", 0, arrivals.arrival(1, 1));
+        Assert.assertEquals(9, arrivals.totalPairs());
+        Assert.assertEquals("everybody knows their own gossip", 3, arrivals.informed(0));
+        Assert.assertEquals(9, arrivals.informed(5));
+        Assert.assertEquals("nothing changes after the end", 9, arrivals.informed(100));
+        Assert.assertEquals(1.0 / 3, arrivals.informedFraction(0), 1e-9);
+        Assert.assertEquals(0, arrivals.minuteInformed(0.0));
+        Assert.assertEquals(5, arrivals.minuteInformed(0.99));
+    }
+
+    @Test
+    public void customInitialGossip() {
+        // only gossip 0 has to get around
+        int[][] routes = {{1, 2}, {1, 3}, {4, 3}};
+        Gossip gossip = new Gossip(routes).setRecordArrivals(true)
+                .setInitialGossip(0, 0).setInitialGossip(1).setInitialGossip(2).eval();
+        GossipArrivals arrivals = gossip.getArrivals();
+        Assert.assertEquals(3, arrivals.totalPairs());
+        Assert.assertEquals(GossipArrivals.NEVER, arrivals.arrival(0, 1));
+        Assert.assertEquals("2", gossip.getResult());
+        Assert.assertEquals(2, arrivals.minuteInformed(1.0));
+        Assert.assertEquals(2, arrivals.arrival(2, 0));
+    }
+
+    @Test
+    public void randomRoutesMatchReplay() throws IOException {
+        Random random = new Random(42);
+        for(int run = 0; run < 200; ++run) {
+            int[][] routes = RandomRoutes.routes(random, 1 + random.nextInt(80), 2 + random.nextInt(40), 9);
+            Gossip gossip = new Gossip(routes).setRule(random.nextBoolean() ? GossipRule.STANDARD : GossipRule.STAY_WHILE_GOSSIPING)
+                    .setScheduleBound(random.nextBoolean() ? 1000 : 0);
+            assertMatchesReplay("run " + run, gossip);
+        }
+    }
+
+    // the arrival of a pair is one after the first traced minute at which it is known
+    private void assertMatchesReplay(String message, Gossip gossip) throws IOException {
+        ByteArrayOutputStream trace = new ByteArrayOutputStream();
+        GossipArrivals arrivals = gossip.setRecordArrivals(true).setTraceStream(trace).eval().getArrivals();
+        int drivers = arrivals.drivers();
+        int[] expected = new int[drivers * drivers];
+        int known = 0;
+        try(TraceReplay replay = new TraceReplay(new ByteArrayInputStream(trace.toByteArray()))) {
+            for(int i = 0; i < drivers; ++i) {
+                for(int g = 0; g < drivers; ++g) {
+                    expected[i * drivers + g] = replay.get(i, g) == 1 ? 0 : GossipArrivals.NEVER;
+                    known += replay.get(i, g);
+                }
+            }
+            Assert.assertEquals(message, known, arrivals.informed(0));
+            while(replay.next()) {
+                known = 0;
+                for(int i = 0; i < drivers; ++i) {
+                    for(int g = 0; g < drivers; ++g) {
+                        if(replay.get(i, g) == 1 && expected[i * drivers + g] == GossipArrivals.NEVER) {
+                            expected[i * drivers + g] = replay.getMinute() + 1;
+                        }
+                        known += replay.get(i, g);
+                    }
+                }
+                Assert.assertEquals(message, known, arrivals.informed(replay.getMinute() + 1));
+            }
+        }
+        for(int i = 0; i < drivers; ++i) {
+            for(int g = 0; g < drivers; ++g) {
+                Assert.assertEquals(message + " driver " + i + " gossip " + g, expected[i * drivers + g], arrivals.arrival(i, g));
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+public class GossipBatchTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void scenariosSeparatedByEmptyLines() throws IOException {
+        File file = folder.newFile("routes.txt");
+        Files.write(file.toPath(), Arrays.asList(
+                "# published test 1",
+                "3,1,2,3",
+                "3,2,3,1",
+                "4,2,3,4,5",
+                "",
+                "2,1,2",
+                "5,2,8",
+                "",
+                "",
+                "1,x"));
+        String[] lines = run(file, 2);
+        Assert.assertEquals(3, lines.length);
+        assertResult("routes.txt:1", "5", lines[0]);
+        assertResult("routes.txt:6", "never", lines[1]);
+        Assert.assertTrue(lines[2], lines[2].startsWith("routes.txt:10\tError: "));
+    }
+
+    @Test
+    public void resultsInInputOrder() throws IOException {
+        File dir = folder.newFolder("scenarios");
+        GossipRunner.CannedRoute[] canned = GossipRunner.CannedRoute.values();
+        for(int k = 0; k < 60; ++k) {
+            int[][] routes = canned[k % canned.length].route;
+            String[] lines = Arrays.stream(routes)
+                    .map(r -> Arrays.toString(r).replaceAll("[\\[\\] ]", ""))
+                    .toArray(String[]::new);
+            Files.write(new File(dir, String.format("s%03d.txt", k)).toPath(), Arrays.asList(lines));
+        }
+        String[] lines = run(dir, 4);
+        Assert.assertEquals(60, lines.length);
+        for(int k = 0; k < 60; ++k) {
+            String expected = new Gossip(canned[k % canned.length].route).eval().getResult();
+            assertResult(String.format("s%03d.txt", k), expected, lines[k]);
+        }
+    }
+
+    private String[] run(File input, int parallelism) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(PrintStream out = new PrintStream(bytes, true, "UTF-8")) {
+            new GossipBatch(parallelism).run(input.toPath(), out);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\\R");
+    }
+
+    private void assertResult(String name, String result, String line) {
+        String[] columns = line.split("\t");
+        Assert.assertEquals(line, 3, columns.length);
+        Assert.assertEquals(line, name, columns[0]);
+        Assert.assertEquals(line, result, columns[1]);
+    }
+}
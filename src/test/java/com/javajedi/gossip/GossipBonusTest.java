@@ -18,15 +18,73 @@
  */
 package com.javajedi.gossip;
 
+import org.junit.Assert;
 import org.junit.Test;
 
 import static org.junit.Assert.fail;
 
 public class GossipBonusTest {
 
+    // published answers for the canned routes under the bonus rules
+    private static final String[] ANSWERS = {"8", "never", "7", "20", "5", "1"};
 
     @Test
-    public void testMe() {
-        fail("not implemented");
+    public void cannedRoutes() {
+        GossipRunner.CannedRoute[] canned = GossipRunner.CannedRoute.values();
+        for(int i = 0; i < canned.length; ++i) {
+            Assert.assertEquals(canned[i].desc, ANSWERS[i], new GossipBonus(canned[i].route).eval().getResult());
+        }
+    }
+
+    @Test
+    public void singleRoute() {
+        GossipBonus gossip = new GossipBonus(new int[][] {{1,2,3}});
+        Assert.assertEquals("a single driver knows everything before any minute passes", "0", gossip.eval().getResult());
+    }
+
+    @Test
+    public void gossipingDriversStayPut() {
+        // both meet at stop 1 and stay there gossiping, then meet the third driver at stop 1 a minute later
+        int[][] routes = {
+            {1, 2},
+            {1, 3},
+            {4, 1}
+        };
+        Assert.assertEquals("bonus rule", "2", new GossipBonus(routes).eval().getResult());
+        // without staying put the first two drivers are gone when the third arrives
+        Assert.assertEquals("standard rule", "never", new Gossip(routes).eval().getResult());
+    }
+
+    @Test
+    public void ruleOnGossip() {
+        int[][] routes = GossipRunner.CannedRoute.ROUTE0.route;
+        Assert.assertEquals("8", new Gossip(routes).setRule(GossipRule.STAY_WHILE_GOSSIPING).eval().getResult());
+        Assert.assertEquals("5", new GossipBonus(routes).setRule(GossipRule.STANDARD).eval().getResult());
+    }
+
+    @Test
+    public void horizon() {
+        int[][] routes = GossipRunner.CannedRoute.ROUTE3.route;
+        Assert.assertEquals("20", new GossipBonus(routes).setHorizon(20).eval().getResult());
+        Assert.assertEquals("results beyond the horizon are never", "never",
+                new GossipBonus(routes).setHorizon(19).eval().getResult());
+    }
+
+    @Test
+    public void reset() {
+        Gossip gossip = new GossipBonus(GossipRunner.CannedRoute.ROUTE2.route).eval();
+        Assert.assertEquals("7", gossip.getResult());
+        Assert.assertEquals("rule is kept by reset", "5", gossip.reset(GossipRunner.CannedRoute.ROUTE4.route).eval().getResult());
+    }
+
+    @Test
+    public void noSchedule() {
+        int[][] routes = {{1,2}, {2,1}};
+        try {
+            new GossipBonus(routes).setSchedule(MeetingSchedule.compile(routes, 10)).eval();
+            fail("should have thrown");
+        } catch( IllegalStateException ex) {}
+        // a schedule bound is ignored, positions aren't periodic under the bonus rules
+        Assert.assertEquals("5", new GossipBonus(GossipRunner.CannedRoute.ROUTE4.route).setScheduleBound(100).eval().getResult());
     }
 }
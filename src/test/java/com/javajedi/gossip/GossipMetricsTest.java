@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+public class GossipMetricsTest {
+
+    private static final int[][] ROUTES = GossipRunner.CannedRoute.ROUTE0.route;
+
+    @Test
+    public void countsEvaluation() {
+        GossipMetrics metrics = new GossipMetrics();
+        Gossip gossip = new Gossip(ROUTES).setMetrics(metrics).eval();
+        Assert.assertEquals("5", gossip.getResult());
+        GossipMetrics.Snapshot snapshot = metrics.snapshot();
+        Assert.assertEquals(1, snapshot.getScenarios());
+        Assert.assertEquals(0, snapshot.getScenariosInFlight());
+        Assert.assertEquals(gossip.getFinalTick() + 1, snapshot.getTicks());
+        // every driver learned every other driver's gossip exactly once
+        Assert.assertEquals(ROUTES.length * (ROUTES.length - 1), snapshot.getGossipBitsTransferred());
+        long[] histogram = snapshot.getOccupancyHistogram();
+        long groups = 0;
+        for(int b = 1; b < histogram.length; ++b) {
+            groups += histogram[b];
+        }
+        Assert.assertEquals("meetings are the stops with 2+ drivers", snapshot.getMeetings(), groups);
+        Assert.assertTrue(snapshot.getMeetings() > 0);
+        Assert.assertTrue("every minute has an occupied stop", histogram[0] + groups >= snapshot.getTicks());
+        Assert.assertTrue(snapshot.getTicksPerSecond() > 0);
+    }
+
+    @Test
+    public void scheduleCountsTheSame() {
+        GossipMetrics stepped = new GossipMetrics();
+        GossipMetrics scheduled = new GossipMetrics();
+        new Gossip(ROUTES).setMetrics(stepped).eval();
+        new Gossip(ROUTES).setScheduleBound(1000).setMetrics(scheduled).eval();
+        Assert.assertEquals(stepped.getTicks(), scheduled.getTicks());
+        Assert.assertEquals(stepped.getMeetings(), scheduled.getMeetings());
+        Assert.assertEquals(stepped.getGossipBitsTransferred(), scheduled.getGossipBitsTransferred());
+    }
+
+    @Test
+    public void notSimulated() {
+        // disconnected: answered without simulating
+        GossipMetrics metrics = new GossipMetrics();
+        Assert.assertEquals("never", new Gossip(new int[][] {{1,2},{3,4}}).setMetrics(metrics).eval().getResult());
+        Assert.assertEquals(1, metrics.getScenarios());
+        Assert.assertEquals(0, metrics.getTicks());
+        Assert.assertEquals(0, metrics.getMeetingsPerTick(), 0);
+    }
+
+    @Test
+    public void snapshotsDiff() {
+        GossipMetrics metrics = new GossipMetrics();
+        new Gossip(ROUTES).setMetrics(metrics).eval();
+        GossipMetrics.Snapshot first = metrics.snapshot();
+        new GossipBonus(ROUTES).setMetrics(metrics).eval();
+        new GossipBonus(ROUTES).setMetrics(metrics).eval();
+        GossipMetrics.Snapshot interval = metrics.snapshot().since(first);
+        Assert.assertEquals(2, interval.getScenarios());
+        Assert.assertEquals(2 * ROUTES.length * (ROUTES.length - 1), interval.getGossipBitsTransferred());
+        Assert.assertEquals(metrics.getTicks() - first.getTicks(), interval.getTicks());
+        Assert.assertTrue(interval.toString().startsWith("scenarios 2 (0 in flight), ticks "));
+        metrics.reset();
+        Assert.assertEquals(0, metrics.getScenarios());
+        Assert.assertEquals(0, metrics.getOccupancyHistogram()[0]);
+    }
+
+    @Test
+    public void registersMBean() throws Exception {
+        GossipMetrics metrics = new GossipMetrics().register();
+        new Gossip(ROUTES).setMetrics(metrics).eval();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(GossipMetrics.OBJECT_NAME);
+        Assert.assertEquals(metrics.getTicks(), server.getAttribute(name, "Ticks"));
+        Assert.assertEquals(1L, server.getAttribute(name, "Scenarios"));
+        // registering again replaces the first
+        new GossipMetrics().register();
+        Assert.assertEquals(0L, server.getAttribute(name, "Scenarios"));
+        server.unregisterMBean(name);
+    }
+}
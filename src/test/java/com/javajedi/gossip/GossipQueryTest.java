@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.fail;
+
+public class GossipQueryTest {
+
+    private static final int[][] ROUTES = GossipRunner.CannedRoute.ROUTE0.route;
+
+    @Test
+    public void invalidQueries() {
+        try {
+            new Gossip(ROUTES).query(GossipQuery.driverInformed(3));
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+        try {
+            new Gossip(ROUTES).query(GossipQuery.gossipReached(-1));
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+        try {
+            new Gossip(ROUTES).query(GossipQuery.anyInformed(0));
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+        try {
+            new Gossip(ROUTES).query();
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+    }
+
+    @Test
+    public void onceUntilReset() {
+        Gossip gossip = new Gossip(ROUTES).eval();
+        try {
+            gossip.query(GossipQuery.driverInformed(0));
+            fail("should have thrown");
+        } catch( IllegalStateException ex) {}
+        gossip.reset(ROUTES).query(GossipQuery.driverInformed(0));
+        try {
+            gossip.eval();
+            fail("should have thrown");
+        } catch( IllegalStateException ex) {}
+        Assert.assertEquals("5", gossip.reset(ROUTES).eval().getResult());
+    }
+
+    @Test
+    public void stopsWhenAnswered() {
+        Gossip gossip = new Gossip(ROUTES);
+        List<GossipQuery.Answer> answers = gossip.query(GossipQuery.gossipReached(0), GossipQuery.anyInformed(1));
+        Assert.assertEquals("gossip 0 reached everybody: 2", answers.get(0).toString());
+        Assert.assertEquals("1 drivers informed: 2", answers.get(1).toString());
+        Assert.assertEquals("stopped after minute 1", 1, gossip.getFinalTick());
+        Assert.assertNull(gossip.getResult());
+        Assert.assertEquals(5, new Gossip(ROUTES).query(GossipQuery.anyInformed(3)).get(0).getMinutes());
+    }
+
+    @Test
+    public void neverAnswered() {
+        List<GossipQuery.Answer> answers = new Gossip(new int[][] {{1,2},{3,4}}).query(GossipQuery.driverInformed(0));
+        Assert.assertTrue(answers.get(0).isNever());
+        Assert.assertEquals("never", answers.get(0).getResult());
+        // answered within the horizon or not at all: everybody knows everything after 5 minutes
+        answers = new Gossip(ROUTES).setHorizon(3).query(GossipQuery.anyInformed(1), GossipQuery.anyInformed(3));
+        Assert.assertEquals(2, answers.get(0).getMinutes());
+        Assert.assertTrue(answers.get(1).isNever());
+    }
+
+    @Test
+    public void randomQueriesMatchArrivals() {
+        Random random = new Random(23);
+        for(int run = 0; run < 300; ++run) {
+            int drivers = 1 + random.nextInt(12);
+            int[][] routes = RandomRoutes.routes(random, drivers, 1 + random.nextInt(2 * drivers), 6);
+            GossipRule rule = random.nextBoolean() ? GossipRule.STANDARD : GossipRule.STAY_WHILE_GOSSIPING;
+            int horizon = random.nextInt(100);
+            Gossip full = new Gossip(routes).setRule(rule).setHorizon(horizon).setRecordArrivals(true).eval();
+            GossipArrivals arrivals = full.getArrivals();
+            if(arrivals == null) {
+                continue; // answered up front, nothing recorded
+            }
+            int n = routes.length;
+            // standard rule answers come at the end of a minute, the bonus rule can answer before minute 0
+            int first = rule == GossipRule.STANDARD ? 1 : 0;
+            int[] informed = new int[n];
+            GossipQuery[] queries = new GossipQuery[2 * n + 1];
+            int[] expected = new int[queries.length];
+            for(int i = 0; i < n; ++i) {
+                informed[i] = first;
+                int reached = first;
+                for(int g = 0; g < n; ++g) {
+                    informed[i] = latest(informed[i], arrivals.arrival(i, g));
+                    reached = latest(reached, arrivals.arrival(g, i));
+                }
+                queries[i] = GossipQuery.driverInformed(i);
+                expected[i] = informed[i];
+                queries[n + i] = GossipQuery.gossipReached(i);
+                expected[n + i] = reached;
+            }
+            int k = 1 + random.nextInt(n);
+            int[] sorted = Arrays.stream(informed).map(m -> m < 0 ? Integer.MAX_VALUE : m).sorted().toArray();
+            queries[2 * n] = GossipQuery.anyInformed(k);
+            expected[2 * n] = sorted[k - 1] == Integer.MAX_VALUE ? -1 : sorted[k - 1];
+            List<GossipQuery.Answer> answers = new Gossip(routes).setRule(rule).setHorizon(horizon).query(queries);
+            // results past the horizon are "never"
+            int lastResult = rule == GossipRule.STANDARD ? horizon + 1 : horizon;
+            for(int q = 0; q < queries.length; ++q) {
+                if(expected[q] > lastResult) {
+                    expected[q] = -1;
+                }
+                Assert.assertEquals("run " + run + " " + queries[q], expected[q], answers.get(q).getMinutes());
+            }
+            // when everybody is informed is the result of eval
+            if(k == n) {
+                Assert.assertEquals("run " + run, full.getResult(), answers.get(2 * n).getResult());
+            }
+        }
+    }
+
+    // later of two arrivals, never (-1) if either is never
+    private static int latest(int a, int b) {
+        return a < 0 || b < 0 ? -1 : Math.max(a, b);
+    }
+}
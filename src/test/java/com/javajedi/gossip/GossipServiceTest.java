@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class GossipServiceTest {
+
+    private GossipService service;
+    private HttpClient client;
+
+    @Before
+    public void start() throws IOException {
+        service = new GossipService(0, 2).start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @After
+    public void stop() {
+        service.close();
+    }
+
+    @Test
+    public void evaluates() throws Exception {
+        HttpResponse<String> response = post("/eval", "3,1,2,3\n3,2,3,1\n4,2,3,4,5\n");
+        Assert.assertEquals(200, response.statusCode());
+        Assert.assertEquals("5", response.body().trim());
+        Assert.assertEquals("miss", response.headers().firstValue("X-Cache").orElse(null));
+        Assert.assertEquals("bonus rules", "8", post("/eval?rule=bonus", "3,1,2,3\n3,2,3,1\n4,2,3,4,5\n").body().trim());
+        Assert.assertEquals("never", post("/eval?horizon=3", "3,1,2,3\n3,2,3,1\n4,2,3,4,5\n").body().trim());
+    }
+
+    @Test
+    public void permutedDriversHitTheCache() throws Exception {
+        post("/eval", "3,1,2,3\n3,2,3,1\n4,2,3,4,5\n");
+        HttpResponse<String> response = post("/eval", "4,2,3,4,5\n3,1,2,3\n3,2,3,1\n");
+        Assert.assertEquals("5", response.body().trim());
+        Assert.assertEquals("hit", response.headers().firstValue("X-Cache").orElse(null));
+        // other settings are other results
+        Assert.assertEquals("miss", post("/eval?rule=bonus", "3,2,3,1\n3,1,2,3\n4,2,3,4,5\n").headers().firstValue("X-Cache").orElse(null));
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted() throws Exception {
+        post("/eval", "1,2\n2,1\n");
+        post("/eval", "1,2\n1,3\n");
+        post("/eval", "1,2\n2,1\n"); // hit, now the most recently used
+        post("/eval", "5,6\n6,5\n"); // evicts 1,2 / 1,3
+        Assert.assertEquals("hit", post("/eval", "2,1\n1,2\n").headers().firstValue("X-Cache").orElse(null));
+        Assert.assertEquals("miss", post("/eval", "1,3\n1,2\n").headers().firstValue("X-Cache").orElse(null));
+    }
+
+    @Test
+    public void malformedInput() throws Exception {
+        HttpResponse<String> response = post("/eval", "1,2\n3,x\n");
+        Assert.assertEquals(400, response.statusCode());
+        Assert.assertTrue(response.body(), response.body().startsWith("Error: line 2"));
+        Assert.assertEquals(400, post("/eval?rule=sideways", "1,2\n").statusCode());
+        Assert.assertEquals(405, client.send(HttpRequest.newBuilder(uri("/eval")).GET().build(),
+                HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    public void concurrentRequests() throws Exception {
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for(int i = 0; i < 50; ++i) {
+            GossipRunner.CannedRoute canned = GossipRunner.CannedRoute.values()[i % GossipRunner.CannedRoute.values().length];
+            responses.add(client.sendAsync(HttpRequest.newBuilder(uri("/eval"))
+                    .POST(HttpRequest.BodyPublishers.ofString(text(canned.route))).build(), HttpResponse.BodyHandlers.ofString()));
+        }
+        String[] expected = {"5", "never", "9", "16", "16", "1"};
+        for(int i = 0; i < responses.size(); ++i) {
+            Assert.assertEquals("request " + i, expected[i % expected.length], responses.get(i).get().body().trim());
+        }
+    }
+
+    @Test
+    public void stats() throws Exception {
+        post("/eval", "1,2\n2,1\n");
+        post("/eval", "2,1\n1,2\n");
+        post("/eval", "oops");
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/stats")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        String stats = response.body();
+        Assert.assertTrue(stats, stats.startsWith("{\"requests\":3,\"errors\":1,\"hits\":1,\"misses\":1,\"cached\":1,"));
+        Assert.assertTrue(stats, stats.contains("\"latencyP99Micros\":"));
+    }
+
+    @Test
+    public void canonicalKey() {
+        ResultCache.Key a = new ResultCache.Key(new int[][] {{1, 2}, {2, 1}, {1, 2}}, GossipRule.STANDARD, 480);
+        ResultCache.Key b = new ResultCache.Key(new int[][] {{2, 1}, {1, 2}, {1, 2}}, GossipRule.STANDARD, 480);
+        Assert.assertEquals(a, b);
+        Assert.assertEquals(a.hash(), b.hash());
+        Assert.assertNotEquals("routes aren't rotated", a,
+                new ResultCache.Key(new int[][] {{2, 1}, {2, 1}, {1, 2}}, GossipRule.STANDARD, 480));
+        Assert.assertNotEquals(a, new ResultCache.Key(new int[][] {{1, 2}, {2, 1}, {1, 2}}, GossipRule.STANDARD, 479));
+    }
+
+    private HttpResponse<String> post(String path, String body) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + service.getPort() + path);
+    }
+
+    private static String text(int[][] routes) {
+        StringBuilder s = new StringBuilder();
+        for(int[] route : routes) {
+            for(int k = 0; k < route.length; ++k) {
+                s.append(k == 0 ? "" : ",").append(route[k]);
+            }
+            s.append('\n');
+        }
+        return s.toString();
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.junit.Assert.fail;
+
+public class GossipStressTest {
+
+    @Test
+    public void invalidArguments() {
+        try {
+            new GossipStress(new FleetGenerator(1), 0);
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+        try {
+            new GossipStress(new FleetGenerator(1), 1).run(0, null);
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+    }
+
+    @Test
+    public void reportsEveryScenario() {
+        FleetGenerator generator = new FleetGenerator(3).setDrivers(20).setLengths(2, 6).setStops(40).setHubs(2, 0.2);
+        GossipStress.Report report = new GossipStress(generator, 3).setHorizon(100).run(50, null);
+        int completed = 0;
+        for(int k = 0; k < 50; ++k) {
+            completed += "never".equals(new Gossip(generator.scenario(k)).setHorizon(100).eval().getResult()) ? 0 : 1;
+        }
+        Assert.assertEquals(50, report.getScenarios());
+        Assert.assertEquals(completed, report.getCompleted());
+        Assert.assertTrue(report.getLatencyMicros(0.5) <= report.getLatencyMicros(0.99));
+        Assert.assertTrue(report.getLatencyMicros(0.99) <= report.getLatencyMicros(1));
+        Assert.assertTrue(report.getScenariosPerSecond() > 0);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.fail;
+
+public class GossipSweepTest {
+
+    private static final int[][] ROUTES = {{3,1,2,3}, {3,2,3,1}, {4,2,3,4,5}};
+
+    @Test
+    public void invalidArguments() {
+        try {
+            new GossipSweep(new int[][] {{1,2}}, 0);
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+        try {
+            new GossipSweep(ROUTES, 1).startOffsets(3);
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+        try {
+            new GossipSweep(ROUTES, 1).setHorizon(-1);
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+    }
+
+    @Test
+    public void leaveOneOut() {
+        GossipSweep sweep = new GossipSweep(ROUTES, 2);
+        Assert.assertEquals("5", sweep.baseline());
+        List<GossipSweep.Variant> variants = sweep.leaveOneOut();
+        Assert.assertEquals(3, variants.size());
+        for(GossipSweep.Variant variant : variants) {
+            int[][] without = new int[2][];
+            for(int i = 0, j = 0; i < ROUTES.length; ++i) {
+                if(i != variant.getDriver()) {
+                    without[j++] = ROUTES[i];
+                }
+            }
+            Gossip gossip = new Gossip(without).eval();
+            Assert.assertEquals("without " + variant.getDriver(), gossip.getResult(), variant.getResult());
+            Assert.assertEquals("without " + variant.getDriver(), gossip.getFinalTick(), variant.getFinalTick());
+            Assert.assertEquals(0, variant.getOffset());
+        }
+        assertRanked(variants, true);
+        Assert.assertTrue(new GossipSweep(new int[][] {{1}}, 1).leaveOneOut().isEmpty());
+    }
+
+    @Test
+    public void startOffsets() {
+        List<GossipSweep.Variant> variants = new GossipSweep(ROUTES, 3).startOffsets(2);
+        Assert.assertEquals(ROUTES[2].length - 1, variants.size());
+        for(GossipSweep.Variant variant : variants) {
+            assertSameAsShifted(ROUTES, GossipRule.STANDARD, Gossip.DEFAULT_HORIZON, variant);
+        }
+        assertRanked(variants, false);
+    }
+
+    @Test
+    public void randomSweepsMatchGossip() {
+        Random random = new Random(5);
+        for(int run = 0; run < 50; ++run) {
+            int[][] routes = RandomRoutes.routes(random, 2 + random.nextInt(20), 2 + random.nextInt(15), 8);
+            GossipRule rule = random.nextBoolean() ? GossipRule.STANDARD : GossipRule.STAY_WHILE_GOSSIPING;
+            int horizon = random.nextInt(300);
+            GossipSweep sweep = new GossipSweep(routes, 1 + random.nextInt(4)).setRule(rule).setHorizon(horizon);
+            Assert.assertEquals("run " + run, new Gossip(routes).setRule(rule).setHorizon(horizon).eval().getResult(),
+                    sweep.baseline());
+            for(GossipSweep.Variant variant : sweep.startOffsets(random.nextInt(routes.length))) {
+                assertSameAsShifted(routes, rule, horizon, variant);
+            }
+            assertRanked(sweep.leaveOneOut(), true);
+        }
+    }
+
+    private static void assertSameAsShifted(int[][] routes, GossipRule rule, int horizon, GossipSweep.Variant variant) {
+        int[][] shifted = routes.clone();
+        int[] route = routes[variant.getDriver()];
+        shifted[variant.getDriver()] = new int[route.length];
+        for(int k = 0; k < route.length; ++k) {
+            shifted[variant.getDriver()][k] = route[(variant.getOffset() + k) % route.length];
+        }
+        Gossip gossip = new Gossip(shifted).setRule(rule).setHorizon(horizon).eval();
+        Assert.assertEquals("offset " + variant.getOffset(), gossip.getResult(), variant.getResult());
+        Assert.assertEquals("offset " + variant.getOffset(), gossip.getFinalTick(), variant.getFinalTick());
+    }
+
+    // worst first for leave one out, best first for offsets
+    private static void assertRanked(List<GossipSweep.Variant> variants, boolean worstFirst) {
+        for(int k = 1; k < variants.size(); ++k) {
+            long previous = variants.get(k - 1).rank();
+            long current = variants.get(k).rank();
+            Assert.assertTrue("rank " + k, worstFirst ? previous >= current : previous <= current);
+        }
+    }
+}
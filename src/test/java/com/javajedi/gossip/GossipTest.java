@@ -45,11 +45,15 @@ public class GossipTest {
     }
 
     @Test
-    public void tooManyRoutes() {
-        try {
-            new Gossip(new int[33][2]);
-            fail("should have thrown");
-        } catch( IllegalArgumentException ex) {}
+    public void moreRoutesThanOneWord() {
+        // 70 drivers wait at stop 1, the last one joins them a minute later
+        int[][] routes = new int[71][];
+        for(int i=0; i<70; ++i) {
+            routes[i] = new int[] {1, 1};
+        }
+        routes[70] = new int[] {2, 1};
+        Gossip gossip = new Gossip(routes).eval();
+        Assert.assertEquals("2", gossip.getResult());
     }
 
     @Test
@@ -62,6 +66,16 @@ public class GossipTest {
         Assert.assertEquals("getResult should agree with outputWriter", "1", gossip.getResult().trim());
     }
 
+    @Test
+    public void driversSharingStopLearnEverything() {
+        Gossip gossip = new Gossip(
+            new int[][] {
+                {4, 1},
+                {4, 2},
+                {4, 3}}).eval();
+        Assert.assertEquals("all drivers meet at the first stop", "1", gossip.getResult());
+    }
+
     @Test
     public void publishedTestNumberOne() {
         Gossip gossip = new Gossip(
@@ -70,6 +84,7 @@ public class GossipTest {
                 {3,2,3,1},
                 {4,2,3,4,5}}).eval();
         Assert.assertEquals("5", gossip.getResult());
+        Assert.assertEquals(4, gossip.getFinalTick());
     }
 
     @Test
@@ -79,6 +94,170 @@ public class GossipTest {
                 {2, 1, 2},
                 {5, 2, 8}}).eval();
         Assert.assertEquals("never", gossip.getResult());
+        Assert.assertEquals("never is proven after one period of 3 minutes", 2, gossip.getFinalTick());
+    }
+
+    @Test
+    public void disconnectedRoutesAreNeverWithoutSimulating() {
+        Gossip gossip = new Gossip(
+            new int[][] {
+                {1, 2},
+                {2, 1},
+                {3, 4}});
+        Assert.assertFalse(gossip.isConnected());
+        Assert.assertEquals(Integer.MAX_VALUE, gossip.getLowerBound());
+        Assert.assertEquals("never", gossip.eval().getResult());
+        Assert.assertEquals(0, gossip.getFinalTick());
+    }
+
+    @Test
+    public void lowerBoundFromDiameter() {
+        // a chain: each driver only shares a stop with its neighbours
+        Gossip gossip = new Gossip(
+            new int[][] {
+                {1, 2},
+                {2, 3},
+                {3, 4},
+                {4, 5}});
+        Assert.assertTrue(gossip.isConnected());
+        Assert.assertEquals(3, gossip.getLowerBound());
+        Assert.assertEquals("never", gossip.setHorizon(1).eval().getResult());
+        Assert.assertEquals("decided before simulating", 0, gossip.getFinalTick());
+    }
+
+    @Test
+    public void scheduleMatchesStepping() {
+        for(GossipRunner.CannedRoute canned : GossipRunner.CannedRoute.values()) {
+            Gossip stepping = new Gossip(canned.route).eval();
+            Gossip scheduled = new Gossip(canned.route).setScheduleBound(1_000_000).eval();
+            Assert.assertEquals(canned.name(), stepping.getResult(), scheduled.getResult());
+            Assert.assertEquals(canned.name(), stepping.getFinalTick(), scheduled.getFinalTick());
+        }
+    }
+
+    @Test
+    public void sharedScheduleWithInitialGossip() {
+        int[][] routes = {
+            {3,1,2,3},
+            {3,2,3,1},
+            {4,2,3,4,5}};
+        MeetingSchedule schedule = MeetingSchedule.compile(routes, 100);
+        Assert.assertNotNull(schedule);
+        Assert.assertEquals("5", new Gossip(routes).setSchedule(schedule).eval().getResult());
+        // driver 2 has nothing to tell, it only has to hear from drivers 0 and 1
+        Assert.assertEquals("2", new Gossip(routes).setSchedule(schedule).setInitialGossip(2).eval().getResult());
+        // driver 0 knows everything from the start, everybody else learns it from driver 0
+        Gossip gossip = new Gossip(routes).setSchedule(schedule)
+                .setInitialGossip(0, 0, 1, 2)
+                .setInitialGossip(1)
+                .setInitialGossip(2);
+        Assert.assertEquals(new Gossip(routes).setInitialGossip(0, 0, 1, 2).setInitialGossip(1).setInitialGossip(2)
+                .eval().getResult(), gossip.eval().getResult());
+    }
+
+    @Test
+    public void scheduleNotCompiledBeyondBound() {
+        Assert.assertNull(MeetingSchedule.compile(new int[][] {{1,2,3}, {1,2}}, 5));
+        Assert.assertNotNull(MeetingSchedule.compile(new int[][] {{1,2,3}, {1,2}}, 6));
+    }
+
+    @Test
+    public void scheduleForOtherRoutes() {
+        try {
+            new Gossip(new int[][] {{1,2}}).setSchedule(MeetingSchedule.compile(new int[][] {{1,3}}, 10));
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+        try {
+            new Gossip(new int[][] {{1,2}}).setSchedule(MeetingSchedule.compile(new int[][] {{1,2,1}}, 10));
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+        try {
+            new Gossip(new int[][] {{1,2}}).setSchedule(MeetingSchedule.compile(new int[][] {{1,2},{2,1}}, 10));
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+    }
+
+    @Test
+    public void scheduleForSameRoutes() {
+        int[][] routes = {
+            {3,1,2,3},
+            {3,2,3,1},
+            {4,2,3,4,5}};
+        MeetingSchedule schedule = MeetingSchedule.compile(routes, 100);
+        // a copy of the routes, and the routes loaded from a table, whose arrays are rebuilt on demand
+        int[][] copy = new int[routes.length][];
+        for(int i = 0; i < copy.length; ++i) {
+            copy[i] = routes[i].clone();
+        }
+        Assert.assertEquals("5", new Gossip(copy).setSchedule(schedule).eval().getResult());
+        Gossip gossip = Gossip.of(RouteTable.of(routes)).setSchedule(schedule);
+        Assert.assertEquals("5", gossip.eval().getResult());
+        Assert.assertEquals("5", gossip.reset(RouteTable.of(routes)).setSchedule(schedule).eval().getResult());
+    }
+
+    @Test
+    public void invalidInitialGossip() {
+        try {
+            new Gossip(new int[][] {{1,2}, {2,1}}).setInitialGossip(0, 2);
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+    }
+
+    @Test
+    public void resetForOtherRoutes() {
+        Gossip gossip = new Gossip(GossipRunner.CannedRoute.ROUTE3.route).setHorizon(100).eval();
+        Assert.assertEquals("16", gossip.getResult());
+        gossip.reset(GossipRunner.CannedRoute.ROUTE0.route);
+        Assert.assertNull("not eval'ed yet, so should be null", gossip.getResult());
+        Assert.assertEquals("5", gossip.eval().getResult());
+        gossip.reset(GossipRunner.CannedRoute.ROUTE3.route).setInitialGossip(0, 1);
+        Assert.assertEquals("initial gossip is reset", "16",
+                gossip.reset(GossipRunner.CannedRoute.ROUTE3.route).eval().getResult());
+        Assert.assertEquals("horizon is kept", "never",
+                gossip.setHorizon(10).reset(GossipRunner.CannedRoute.ROUTE3.route).eval().getResult());
+    }
+
+    @Test
+    public void fromRouteTable() {
+        for(GossipRunner.CannedRoute canned : GossipRunner.CannedRoute.values()) {
+            Gossip routes = new Gossip(canned.route).setScheduleBound(1_000_000).eval();
+            // the schedule is compiled from routes rebuilt from the layout
+            Gossip table = Gossip.of(RouteTable.of(canned.route)).setScheduleBound(1_000_000).eval();
+            Assert.assertEquals(canned.name(), routes.getResult(), table.getResult());
+            Assert.assertEquals(canned.name(), routes.getFinalTick(), table.getFinalTick());
+        }
+        try {
+            Gossip.of(RouteTable.of(new int[0][]));
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+    }
+
+    @Test
+    public void neverIsProvenRegardlessOfHorizon() {
+        Gossip gossip = new Gossip(
+            new int[][] {
+                {2, 1, 2},
+                {5, 2, 8}}).setHorizon(Integer.MAX_VALUE).eval();
+        Assert.assertEquals("never", gossip.getResult());
+        Assert.assertEquals(2, gossip.getFinalTick());
+    }
+
+    @Test
+    public void horizonLimitsSimulation() {
+        int[][] routes = {
+            {3,1,2,3},
+            {3,2,3,1},
+            {4,2,3,4,5}};
+        Assert.assertEquals("never", new Gossip(routes).setHorizon(3).eval().getResult());
+        Assert.assertEquals("5", new Gossip(routes).setHorizon(4).eval().getResult());
+    }
+
+    @Test
+    public void negativeHorizon() {
+        try {
+            new Gossip(new int[][] {{1}}).setHorizon(-1);
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
     }
 
     @Test
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.fail;
+
+public class IncrementalGossipTest {
+
+    @Test
+    public void invalidRoutes() {
+        try {
+            new IncrementalGossip(new int[][] {});
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+        try {
+            new IncrementalGossip(new int[][] {{1,2}, {}});
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+    }
+
+    @Test
+    public void invalidEdits() {
+        IncrementalGossip gossip = new IncrementalGossip(new int[][] {{1,2}, {2,3}});
+        try {
+            gossip.setRoute(2, new int[] {1});
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+        try {
+            gossip.setRoute(0, new int[] {});
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+        try {
+            gossip.setSnapshotInterval(0);
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+    }
+
+    @Test
+    public void cannedRoutesMatchGossip() {
+        for(GossipRunner.CannedRoute canned : GossipRunner.CannedRoute.values()) {
+            IncrementalGossip incremental = new IncrementalGossip(canned.route).eval();
+            assertSame(canned.name(), canned.route, incremental);
+            Assert.assertEquals(0, incremental.getResumedAt());
+        }
+    }
+
+    @Test
+    public void resumesFromSnapshot() {
+        // driver 2 reaches stop 9 at minute 10, changing its first stop leaves minutes 1..9 alone
+        int[][] routes = {{1,2,3,4,5,6,7,8,9,10}, {2,3,4,5,6,7,8,9,10,1}, {9,9,9,9,9,9,9,9,9,9,9,9}};
+        IncrementalGossip gossip = new IncrementalGossip(routes).setSnapshotInterval(4).eval();
+        assertSame("before", routes, gossip);
+        routes[2] = new int[] {9,9,9,9,9,9,9,9,9,9,1,9};
+        gossip.setRoute(2, routes[2]).eval();
+        assertSame("after", routes, gossip);
+        Assert.assertEquals(8, gossip.getResumedAt());
+    }
+
+    @Test
+    public void sameStopsKeepSnapshots() {
+        int[][] routes = {{3,1,2,3}, {3,2,1}, {2,3}};
+        IncrementalGossip gossip = new IncrementalGossip(routes).setSnapshotInterval(1).eval();
+        int finalTick = gossip.getFinalTick();
+        routes[2] = new int[] {2,3,2,3};
+        gossip.setRoute(2, routes[2]).eval();
+        assertSame("repeated route", routes, gossip);
+        Assert.assertEquals(finalTick, gossip.getResumedAt());
+    }
+
+    @Test
+    public void shorterPeriodDropsSnapshots() {
+        // same stops at every minute, but the period goes from 4 to 2: a fresh run decides "never" sooner
+        int[][] routes = {{0,2,0,2}, {2,1}};
+        IncrementalGossip gossip = new IncrementalGossip(routes).setHorizon(252).setSnapshotInterval(1).eval();
+        assertSame("repeated route", routes, 252, gossip);
+        routes[0] = new int[] {0,2};
+        gossip.setRoute(0, routes[0]).eval();
+        assertSame("route replaced by its own repetition", routes, 252, gossip);
+        Assert.assertEquals(1, gossip.getFinalTick());
+    }
+
+    @Test
+    public void shorterHorizonDropsSnapshots() {
+        int[][] routes = GossipRunner.CannedRoute.ROUTE3.route;
+        IncrementalGossip gossip = new IncrementalGossip(routes).setHorizon(100).setSnapshotInterval(1).eval();
+        assertSame("horizon 100", routes, 100, gossip);
+        gossip.setHorizon(10).eval();
+        assertSame("horizon 10", routes, 10, gossip);
+    }
+
+    @Test
+    public void resultCleared() {
+        IncrementalGossip gossip = new IncrementalGossip(new int[][] {{1,2}, {1,3}}).eval();
+        Assert.assertEquals("1", gossip.getResult());
+        gossip.setRoute(1, new int[] {4});
+        Assert.assertNull(gossip.getResult());
+        Assert.assertEquals("never", gossip.eval().getResult());
+        Assert.assertEquals(-1, gossip.getResumedAt()); // disconnected, nothing simulated
+    }
+
+    @Test
+    public void randomEditsMatchFullRerun() {
+        Random random = new Random(17);
+        for(int run = 0; run < 200; ++run) {
+            int stops = 2 + random.nextInt(20);
+            int[][] routes = new int[2 + random.nextInt(30)][];
+            for(int i = 0; i < routes.length; ++i) {
+                routes[i] = RandomRoutes.route(random, 1 + random.nextInt(12), stops);
+            }
+            int horizon = random.nextInt(200);
+            IncrementalGossip incremental = new IncrementalGossip(routes)
+                    .setSnapshotInterval(1 + random.nextInt(20))
+                    .setHorizon(horizon)
+                    .eval();
+            assertSame("run " + run, routes, horizon, incremental);
+            for(int edit = 0; edit < 10; ++edit) {
+                int driver = random.nextInt(routes.length);
+                int kind = random.nextInt(3);
+                if(kind == 0) {
+                    // change a single stop, most likely late in the route
+                    routes[driver] = routes[driver].clone();
+                    routes[driver][random.nextInt(routes[driver].length)] = random.nextInt(stops);
+                } else if(kind == 1) {
+                    // the same stops at every minute, with another period
+                    int[] route = routes[driver];
+                    routes[driver] = new int[route.length * 2];
+                    System.arraycopy(route, 0, routes[driver], 0, route.length);
+                    System.arraycopy(route, 0, routes[driver], route.length, route.length);
+                    incremental.setRoute(driver, routes[driver]).eval();
+                    assertSame("run " + run + " edit " + edit + " repeated", routes, horizon, incremental);
+                    routes[driver] = route;
+                } else {
+                    routes[driver] = RandomRoutes.route(random, 1 + random.nextInt(12), stops);
+                }
+                incremental.setRoute(driver, routes[driver]).eval();
+                assertSame("run " + run + " edit " + edit, routes, horizon, incremental);
+            }
+        }
+    }
+
+    private static void assertSame(String message, int[][] routes, IncrementalGossip incremental) {
+        assertSame(message, routes, Gossip.DEFAULT_HORIZON, incremental);
+    }
+
+    private static void assertSame(String message, int[][] routes, int horizon, IncrementalGossip incremental) {
+        Gossip gossip = new Gossip(routes).setHorizon(horizon).eval();
+        Assert.assertEquals(message, gossip.getResult(), incremental.getResult());
+        Assert.assertEquals(message, gossip.getFinalTick(), incremental.getFinalTick());
+    }
+}
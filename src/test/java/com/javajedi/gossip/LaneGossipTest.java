@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.fail;
+
+public class LaneGossipTest {
+
+    @Test
+    public void invalidScenarios() {
+        try {
+            new LaneGossip(Collections.emptyList());
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+        try {
+            new LaneGossip(Collections.nCopies(LaneGossip.LANES + 1, new int[][] {{1}}));
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+        try {
+            new LaneGossip(Arrays.asList(new int[][] {{1,2},{3}}, new int[][] {{1},{2,3}}));
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+        try {
+            new LaneGossip(Arrays.asList(new int[][] {{1,2},{3}}, new int[][] {{1,2}}));
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+    }
+
+    @Test
+    public void sameProfile() {
+        Assert.assertTrue(LaneGossip.isSameProfile(new int[][] {{1,2},{3}}, new int[][] {{7,8},{9}}));
+        Assert.assertFalse(LaneGossip.isSameProfile(new int[][] {{1,2},{3}}, new int[][] {{7},{8,9}}));
+        Assert.assertFalse(LaneGossip.isSameProfile(new int[][] {{1,2},{3}}, new int[][] {{7,8}}));
+    }
+
+    @Test
+    public void cannedRoutesMatchGossip() {
+        for(GossipRunner.CannedRoute canned : GossipRunner.CannedRoute.values()) {
+            List<int[][]> scenarios = Collections.nCopies(3, canned.route);
+            LaneGossip lanes = new LaneGossip(scenarios).eval();
+            assertSameAsGossip(canned.name(), scenarios, Gossip.DEFAULT_HORIZON, lanes);
+        }
+    }
+
+    @Test
+    public void randomLanesMatchGossip() {
+        Random random = new Random(64);
+        for(int run = 0; run < 100; ++run) {
+            int drivers = 1 + random.nextInt(14);
+            int[] lengths = new int[drivers];
+            for(int i = 0; i < drivers; ++i) {
+                lengths[i] = 1 + random.nextInt(8);
+            }
+            List<int[][]> scenarios = new ArrayList<>();
+            int count = 1 + random.nextInt(LaneGossip.LANES);
+            for(int l = 0; l < count; ++l) {
+                int stops = 1 + random.nextInt(3 * drivers);
+                scenarios.add(RandomRoutes.relabel(RandomRoutes.routes(random, lengths, stops), -stops / 2, 1));
+            }
+            int horizon = random.nextInt(400);
+            LaneGossip lanes = new LaneGossip(scenarios).setHorizon(horizon).eval();
+            assertSameAsGossip("run " + run, scenarios, horizon, lanes);
+        }
+    }
+
+    private static void assertSameAsGossip(String message, List<int[][]> scenarios, int horizon, LaneGossip lanes) {
+        Assert.assertEquals(message, scenarios.size(), lanes.lanes());
+        for(int l = 0; l < scenarios.size(); ++l) {
+            Gossip gossip = new Gossip(scenarios.get(l)).setHorizon(horizon).eval();
+            Assert.assertEquals(message + " lane " + l, gossip.getResult(), lanes.getResult(l));
+            Assert.assertEquals(message + " lane " + l, gossip.getFinalTick(), lanes.getFinalTick(l));
+        }
+    }
+
+    @Test
+    public void evalAllMatchesGossip() {
+        Random random = new Random(3);
+        List<int[][]> scenarios = new ArrayList<>();
+        for(int k = 0; k < 300; ++k) {
+            // few profiles, so most scenarios share lanes, and some one-offs
+            int drivers = 2 + random.nextInt(k % 10 == 0 ? 12 : 3);
+            int[][] routes = new int[drivers][];
+            for(int i = 0; i < drivers; ++i) {
+                routes[i] = new int[2 + (k % 10 == 0 ? random.nextInt(6) : i % 2)];
+                for(int j = 0; j < routes[i].length; ++j) {
+                    routes[i][j] = random.nextInt(2 * drivers);
+                }
+            }
+            scenarios.add(routes);
+        }
+        String[] results = LaneGossip.evalAll(scenarios, 100);
+        for(int k = 0; k < scenarios.size(); ++k) {
+            Assert.assertEquals("scenario " + k, new Gossip(scenarios.get(k)).setHorizon(100).eval().getResult(), results[k]);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.fail;
+
+public class ParallelGossipTest {
+
+    @Test
+    public void invalidThreads() {
+        try {
+            new ParallelGossip(new int[][] {{1,2}}, 0);
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+    }
+
+    @Test
+    public void cannedRoutesMatchGossip() {
+        for(GossipRunner.CannedRoute canned : GossipRunner.CannedRoute.values()) {
+            for(int threads = 1; threads <= 4; ++threads) {
+                assertSameAsGossip(canned.name() + " threads " + threads, canned.route, Gossip.DEFAULT_HORIZON, threads);
+            }
+        }
+    }
+
+    @Test
+    public void randomRoutesMatchGossip() {
+        Random random = new Random(42);
+        for(int run = 0; run < 300; ++run) {
+            int[][] routes = RandomRoutes.routes(random, 1 + random.nextInt(100), 2 + random.nextInt(60), 9);
+            assertSameAsGossip("run " + run, routes, random.nextInt(600), 1 + random.nextInt(6));
+        }
+    }
+
+    @Test
+    public void largeFleet() {
+        // random stops, linked through hub stop 0 so that all gossip gets around
+        Random random = new Random(7);
+        int[][] routes = new int[5000][16];
+        for(int i = 0; i < routes.length; ++i) {
+            for(int k = 0; k < routes[i].length; ++k) {
+                routes[i][k] = 1 + random.nextInt(2000);
+            }
+            routes[i][i % 2] = 0;
+        }
+        routes[0][1] = 0;
+        assertSameAsGossip("large fleet", routes, Gossip.DEFAULT_HORIZON, 4);
+    }
+
+    @Test(timeout = 10_000)
+    public void failingWorkerDoesNotHang() {
+        int[][] routes = GossipRunner.CannedRoute.ROUTE3.route;
+        for(int failing = 0; failing < 4; ++failing) {
+            // the main thread is worker 0, the others run on their own threads
+            ParallelGossip gossip = new ParallelGossip(routes, 4);
+            gossip.failingWorker = failing;
+            try {
+                gossip.eval();
+                fail("should have thrown");
+            } catch( IllegalStateException ex) {
+                Assert.assertTrue(ex.getMessage(), ex.getMessage().contains("Worker " + failing + " failed"));
+            }
+            Assert.assertNull(gossip.getResult());
+        }
+    }
+
+    private void assertSameAsGossip(String message, int[][] routes, int horizon, int threads) {
+        Gossip expected = new Gossip(routes).setHorizon(horizon).eval();
+        ParallelGossip actual = new ParallelGossip(routes, threads).setHorizon(horizon).eval();
+        Assert.assertEquals(message, expected.getResult(), actual.getResult());
+        Assert.assertEquals(message, expected.getFinalTick(), actual.getFinalTick());
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import java.util.Random;
+
+/*
+ * Random route sets for the tests that check an engine against Gossip, so that they all draw their fleets the same
+ * way. Stops are 0..stops-1 unless relabelled; keep the universe small, so that drivers meet often enough for the
+ * gossip to get around (or not).
+ */
+final class RandomRoutes {
+
+    private RandomRoutes() {}
+
+    // drivers routes of 1..maxLength stops each
+    static int[][] routes(Random random, int drivers, int stops, int maxLength) {
+        int[][] routes = new int[drivers][];
+        for(int i = 0; i < drivers; ++i) {
+            routes[i] = route(random, 1 + random.nextInt(maxLength), stops);
+        }
+        return routes;
+    }
+
+    // one route per length
+    static int[][] routes(Random random, int[] lengths, int stops) {
+        int[][] routes = new int[lengths.length][];
+        for(int i = 0; i < lengths.length; ++i) {
+            routes[i] = route(random, lengths[i], stops);
+        }
+        return routes;
+    }
+
+    static int[] route(Random random, int length, int stops) {
+        int[] route = new int[length];
+        for(int k = 0; k < length; ++k) {
+            route[k] = random.nextInt(stops);
+        }
+        return route;
+    }
+
+    // maps stop s to first + s * spacing in place, for ids that are negative or far apart
+    static int[][] relabel(int[][] routes, int first, int spacing) {
+        for(int[] route : routes) {
+            for(int k = 0; k < route.length; ++k) {
+                route[k] = first + route[k] * spacing;
+            }
+        }
+        return routes;
+    }
+}
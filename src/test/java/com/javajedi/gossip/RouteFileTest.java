@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.fail;
+
+public class RouteFileTest {
+
+    private static final int[][] ROUTES = {
+        {3, 1, 2, 3},
+        {-7, 0, Integer.MAX_VALUE, Integer.MIN_VALUE},
+        {4, 2, 3, 4, 5, 300, 70000}
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void fixedRoundTrip() throws IOException {
+        File file = folder.newFile();
+        RouteFile.write(RouteTable.of(ROUTES), file.toPath(), false);
+        Assert.assertArrayEquals(ROUTES, RouteFile.read(file.toPath()).toArray());
+    }
+
+    @Test
+    public void varintRoundTrip() throws IOException {
+        File file = folder.newFile();
+        RouteFile.write(RouteTable.of(ROUTES), file.toPath(), true);
+        Assert.assertArrayEquals(ROUTES, RouteFile.read(file.toPath()).toArray());
+    }
+
+    @Test
+    public void varintIsSmallerForSmallStops() throws IOException {
+        File fixed = folder.newFile();
+        File varint = folder.newFile();
+        RouteTable table = RouteTable.of(GossipRunner.CannedRoute.ROUTE3.route);
+        RouteFile.write(table, fixed.toPath(), false);
+        RouteFile.write(table, varint.toPath(), true);
+        Assert.assertTrue(varint.length() < fixed.length());
+        Assert.assertArrayEquals(GossipRunner.CannedRoute.ROUTE3.route, RouteFile.read(varint.toPath()).toArray());
+    }
+
+    @Test
+    public void notARouteFile() throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), "3,1,2,3\n3,2,3,1\n4,2,3,4,5\n".getBytes("UTF-8"));
+        assertCorrupt(file);
+    }
+
+    @Test
+    public void truncated() throws IOException {
+        File file = folder.newFile();
+        RouteFile.write(RouteTable.of(ROUTES), file.toPath(), false);
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 4));
+        assertCorrupt(file);
+    }
+
+    private void assertCorrupt(File file) throws IOException {
+        try {
+            RouteFile.read(file.toPath());
+            fail("should have thrown");
+        } catch(IllegalArgumentException ex) {}
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RouteLayoutTest {
+
+    @Test
+    public void flattensRoutes() {
+        RouteLayout layout = RouteLayout.of(new int[][] {{3, 1, 2, 3}, {3, 2, 3, 4, 5}, {7}});
+        Assert.assertEquals("drivers", 3, layout.drivers);
+        Assert.assertArrayEquals("offsets", new int[] {0, 4, 9}, layout.offsets);
+        Assert.assertArrayEquals("lengths", new int[] {4, 5, 1}, layout.lengths);
+        Assert.assertEquals("distinct stops", 6, layout.stopCount);
+        // dense ids in order of first appearance
+        Assert.assertArrayEquals("stops", new int[] {0, 1, 2, 0, 0, 2, 0, 3, 4, 5}, layout.stops);
+        Assert.assertArrayEquals("stop ids", new int[] {3, 1, 2, 4, 5, 7}, layout.stopIds);
+        Assert.assertEquals("stop of driver 1 at index 3", 3, layout.stop(1, 3));
+    }
+
+    @Test
+    public void extremeStopIds() {
+        int[][] routes = {{Integer.MIN_VALUE, 0, -1}, {Integer.MAX_VALUE, -1, Integer.MIN_VALUE}};
+        RouteLayout layout = RouteLayout.of(routes);
+        Assert.assertEquals("distinct stops", 4, layout.stopCount);
+        for(int i = 0; i < routes.length; ++i) {
+            for(int k = 0; k < routes[i].length; ++k) {
+                Assert.assertEquals("route " + i + " index " + k, routes[i][k], layout.stopIds[layout.stop(i, k)]);
+            }
+        }
+    }
+
+    @Test
+    public void manyStops() {
+        int[][] routes = new int[100][];
+        for(int i = 0; i < routes.length; ++i) {
+            routes[i] = new int[] {i * 1000, i * 1000 + 1, (i + 1) * 1000};
+        }
+        RouteLayout layout = RouteLayout.of(routes);
+        Assert.assertEquals("distinct stops", 201, layout.stopCount);
+        for(int i = 0; i < routes.length; ++i) {
+            for(int k = 0; k < routes[i].length; ++k) {
+                Assert.assertEquals("route " + i + " index " + k, routes[i][k], layout.stopIds[layout.stop(i, k)]);
+            }
+        }
+    }
+
+    @Test
+    public void derivedLayouts() {
+        int[][] routes = {{3, 1, 2, 3}, {3, 2, 3, 4, 5}, {7}};
+        RouteLayout layout = RouteLayout.of(routes);
+        RouteLayout without = layout.without(1);
+        Assert.assertEquals("drivers", 2, without.drivers);
+        Assert.assertEquals("route 0", 2, without.stopIds[without.stop(0, 2)]);
+        Assert.assertEquals("route 2 is now route 1", 7, without.stopIds[without.stop(1, 0)]);
+        RouteLayout rotated = layout.rotated(1, 2);
+        int[] expected = {3, 4, 5, 3, 2};
+        for(int k = 0; k < expected.length; ++k) {
+            Assert.assertEquals("rotated index " + k, expected[k], rotated.stopIds[rotated.stop(1, k)]);
+        }
+        Assert.assertEquals("other routes unchanged", 1, rotated.stopIds[rotated.stop(0, 1)]);
+        Assert.assertEquals("original unchanged", 2, layout.stopIds[layout.stop(1, 1)]);
+    }
+
+    @Test
+    public void fromRouteTable() {
+        int[][] routes = {{3, 1, 2, 3}, {3, 2, 3, 4, 5}, {7}};
+        RouteLayout expected = RouteLayout.of(routes);
+        RouteLayout layout = RouteLayout.of(RouteTable.of(routes));
+        Assert.assertArrayEquals("offsets", expected.offsets, layout.offsets);
+        Assert.assertArrayEquals("lengths", expected.lengths, layout.lengths);
+        Assert.assertArrayEquals("stops", expected.stops, layout.stops);
+        Assert.assertArrayEquals("stop ids", expected.stopIds, layout.stopIds);
+        Assert.assertArrayEquals("back to routes", routes, layout.toArray());
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.fail;
+
+public class RouteLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void commentsAndBlanks() {
+        RouteTable table = RouteLoader.parse("# published test 1\n3,1,2,3\n 3 , 2,\t3,1\r\n# in between\n4,2,3,4,5");
+        Assert.assertArrayEquals(new int[][] {{3,1,2,3}, {3,2,3,1}, {4,2,3,4,5}}, table.toArray());
+    }
+
+    @Test
+    public void signsAndRange() {
+        RouteTable table = RouteLoader.parse("-1,+2,2147483647,-2147483648\n");
+        Assert.assertArrayEquals(new int[][] {{-1, 2, Integer.MAX_VALUE, Integer.MIN_VALUE}}, table.toArray());
+    }
+
+    @Test
+    public void trailingComma() {
+        Assert.assertArrayEquals(new int[][] {{1,2}}, RouteLoader.parse("1,2,\n").toArray());
+    }
+
+    @Test
+    public void malformedStop() {
+        assertError("1,2\n3,x,4", "line 2, column 3");
+    }
+
+    @Test
+    public void missingStop() {
+        assertError("1,,2", "line 1, column 3");
+    }
+
+    @Test
+    public void missingComma() {
+        assertError("1 2", "line 1, column 3");
+    }
+
+    @Test
+    public void stopOutOfRange() {
+        assertError("1,2147483648", "line 1, column 3");
+    }
+
+    @Test
+    public void emptyLineBetweenRoutes() {
+        assertError("1,2\n\n2,1", "line 2");
+    }
+
+    @Test
+    public void scenarios() {
+        RouteLoader loader = new RouteLoader(ByteBuffer.wrap(
+                "\n1,2\n2,1\n  \n# second\n5,6\n\n\n7\n\n".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertArrayEquals(new int[][] {{1,2}, {2,1}}, loader.next().toArray());
+        Assert.assertEquals(2, loader.getScenarioLine());
+        Assert.assertArrayEquals(new int[][] {{5,6}}, loader.next().toArray());
+        Assert.assertEquals(5, loader.getScenarioLine());
+        Assert.assertArrayEquals(new int[][] {{7}}, loader.next().toArray());
+        Assert.assertNull(loader.next());
+    }
+
+    @Test
+    public void skipMalformedScenario() {
+        RouteLoader loader = new RouteLoader(ByteBuffer.wrap("1,2\n2,x\n3,4\n\n5,6".getBytes(StandardCharsets.UTF_8)));
+        try {
+            loader.next();
+            fail("should have thrown");
+        } catch(IllegalArgumentException ex) {}
+        loader.skipScenario();
+        Assert.assertArrayEquals(new int[][] {{5,6}}, loader.next().toArray());
+    }
+
+    @Test
+    public void loadFile() throws IOException {
+        File file = folder.newFile("routes.txt");
+        StringBuilder text = new StringBuilder();
+        for(GossipRunner.CannedRoute canned : GossipRunner.CannedRoute.values()) {
+            for(int[] route : canned.route) {
+                text.append("# ").append(canned.desc).append('\n');
+                for(int stop : route) {
+                    text.append(stop).append(", ");
+                }
+                text.setLength(text.length() - 2);
+                text.append('\n');
+            }
+        }
+        Files.write(file.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+        RouteTable table = RouteLoader.load(file.toPath());
+        int driver = 0;
+        for(GossipRunner.CannedRoute canned : GossipRunner.CannedRoute.values()) {
+            for(int[] route : canned.route) {
+                Assert.assertEquals(route.length, table.length(driver));
+                for(int k = 0; k < route.length; ++k) {
+                    Assert.assertEquals(route[k], table.stop(driver, k));
+                }
+                ++driver;
+            }
+        }
+        Assert.assertEquals(driver, table.drivers());
+    }
+
+    private void assertError(String text, String position) {
+        try {
+            RouteLoader.parse(text);
+            fail("should have thrown");
+        } catch(IllegalArgumentException ex) {
+            Assert.assertTrue(ex.getMessage(), ex.getMessage().startsWith(position));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.fail;
+
+public class StopIndexTest {
+
+    private static final int[][] ROUTES = GossipRunner.CannedRoute.ROUTE0.route;
+
+    @Test
+    public void invalidArguments() {
+        try {
+            new StopIndex(new int[0][]);
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+        StopIndex index = new StopIndex(ROUTES);
+        try {
+            index.driversAt(3, -1);
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+        try {
+            index.nextMeeting(0, 3, 0);
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+        try {
+            index.stopOf(-1, 0);
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+    }
+
+    @Test
+    public void cannedRoutes() {
+        StopIndex index = new StopIndex(ROUTES);
+        Assert.assertArrayEquals(new int[] {0, 1}, index.driversAt(3, 0));
+        Assert.assertArrayEquals(new int[] {2}, index.driversAt(4, 0));
+        Assert.assertArrayEquals(new int[0], index.driversAt(7, 0));
+        Assert.assertEquals(0, index.nextMeeting(0, 1, 0));
+        Assert.assertEquals(6, index.nextMeeting(0, 2, 0));
+        Assert.assertEquals("minute 0: 3=[0, 1] 4=[2]", index.occupancy(0).toString());
+        Assert.assertEquals(3, index.stopOf(1, 1_000_000_000_000L));
+    }
+
+    @Test
+    public void neverMeet() {
+        // both visit stop 1, but never at the same time
+        StopIndex index = new StopIndex(new int[][] {{1,2},{2,1}});
+        Assert.assertEquals(-1, index.nextMeeting(0, 1, 0));
+        Assert.assertEquals(5, index.nextMeeting(1, 1, 5));
+        // the next meeting would be past Long.MAX_VALUE
+        index = new StopIndex(new int[][] {{1,2},{1,3}});
+        Assert.assertEquals(Long.MAX_VALUE - 1, index.nextMeeting(0, 1, Long.MAX_VALUE - 1));
+        Assert.assertEquals(-1, index.nextMeeting(0, 1, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void randomQueriesMatchRoutes() {
+        Random random = new Random(24);
+        for(int run = 0; run < 200; ++run) {
+            int drivers = 1 + random.nextInt(10);
+            int stops = 1 + random.nextInt(2 * drivers);
+            // stop ids -10, -3, 4, ...: negative and not dense
+            int[][] routes = RandomRoutes.relabel(RandomRoutes.routes(random, drivers, stops, 7), -10, 7);
+            StopIndex index = new StopIndex(routes);
+            for(int query = 0; query < 20; ++query) {
+                long minute = random.nextInt(1000);
+                // drivers at a stop, and the occupancy of all stops
+                StopIndex.Occupancy occupancy = index.occupancy(minute);
+                int occupied = 0;
+                for(int stop = -10; stop < stops * 7 - 10; stop += 7) {
+                    int[] expected = new int[routes.length];
+                    int count = 0;
+                    for(int i = 0; i < routes.length; ++i) {
+                        if(routes[i][(int) (minute % routes[i].length)] == stop) {
+                            expected[count++] = i;
+                        }
+                    }
+                    expected = Arrays.copyOf(expected, count);
+                    Assert.assertArrayEquals("run " + run, expected, index.driversAt(stop, minute));
+                    if(count > 0) {
+                        int k = 0;
+                        while(occupancy.stop(k) != stop) {
+                            ++k;
+                        }
+                        Assert.assertArrayEquals("run " + run, expected, occupancy.drivers(k));
+                        ++occupied;
+                    }
+                }
+                Assert.assertEquals("run " + run, occupied, occupancy.size());
+                for(int k = 1; k < occupancy.size(); ++k) {
+                    Assert.assertTrue("run " + run, occupancy.drivers(k - 1)[0] < occupancy.drivers(k)[0]);
+                }
+                // next meeting, by stepping the clock for a whole period
+                int a = random.nextInt(routes.length);
+                int b = random.nextInt(routes.length);
+                long expected = -1;
+                long step = RouteMath.lcm(routes[a].length, routes[b].length, Long.MAX_VALUE);
+                for(long t = minute; t < minute + step; ++t) {
+                    if(routes[a][(int) (t % routes[a].length)] == routes[b][(int) (t % routes[b].length)]) {
+                        expected = t;
+                        break;
+                    }
+                }
+                Assert.assertEquals("run " + run, expected, index.nextMeeting(a, b, minute));
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.fail;
+
+public class TickPublisherTest {
+
+    private static final int[][] ROUTES = GossipRunner.CannedRoute.ROUTE0.route;
+
+    @Test
+    public void invalidArguments() {
+        try {
+            new TickPublisher(Runnable::run, 0);
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+        try {
+            new TickPublisher(Runnable::run, 1).setSampleEvery(0);
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+        try {
+            new TickPublisher(Runnable::run, 1).setPolicy(null);
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+    }
+
+    @Test
+    public void blockDeliversEveryTick() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try(TickPublisher publisher = new TickPublisher(executor, 2).setPolicy(TickPublisher.Policy.BLOCK)) {
+            Collector collector = new Collector(Long.MAX_VALUE);
+            publisher.subscribe(collector);
+            Gossip gossip = new Gossip(ROUTES).setTickPublisher(publisher).eval();
+            publisher.close();
+            collector.await();
+            Assert.assertEquals(gossip.getFinalTick() + 1, collector.ticks.size());
+            StringBuilder rendered = new StringBuilder();
+            for(int m = 0; m < collector.ticks.size(); ++m) {
+                Assert.assertEquals(m, collector.ticks.get(m).getMinute());
+                rendered.append(collector.ticks.get(m).render());
+            }
+            GossipTick last = collector.ticks.get(collector.ticks.size() - 1);
+            for(int i = 0; i < ROUTES.length; ++i) {
+                Assert.assertEquals(ROUTES.length, last.knownCount(i));
+                Assert.assertEquals(ROUTES[i][last.getLocation(i)], last.getStop(i));
+            }
+            Assert.assertFalse(collector.ticks.get(0).knows(2, 0)); // ticks are copies
+            Assert.assertEquals(debugOutput(ROUTES), rendered.toString());
+            Assert.assertEquals(0, publisher.getDropped());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void sampleKeepsLastMinute() throws Exception {
+        try(TickPublisher publisher = new TickPublisher(Runnable::run, 4).setPolicy(TickPublisher.Policy.SAMPLE).setSampleEvery(3)) {
+            Collector collector = new Collector(Long.MAX_VALUE);
+            publisher.subscribe(collector);
+            Gossip gossip = new Gossip(ROUTES).setTickPublisher(publisher).eval();
+            publisher.close();
+            collector.await();
+            int[] minutes = collector.ticks.stream().mapToInt(GossipTick::getMinute).toArray();
+            Assert.assertEquals(4, gossip.getFinalTick());
+            Assert.assertArrayEquals(new int[] {0, 3, 4}, minutes);
+        }
+    }
+
+    @Test
+    public void dropNeverWaits() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try(TickPublisher publisher = new TickPublisher(executor, 1)) {
+            // takes one tick, then stalls
+            Collector stalled = new Collector(1);
+            publisher.subscribe(stalled);
+            int[][] routes = new FleetGenerator(1).setDrivers(50).setStops(500).scenario(0);
+            Gossip gossip = new Gossip(routes).setTickPublisher(publisher).eval();
+            Assert.assertTrue(gossip.getFinalTick() > 10);
+            Assert.assertTrue("skipped " + publisher.getSkipped(), publisher.getSkipped() > 0);
+            Assert.assertEquals(gossip.getFinalTick() + 1, publisher.getPublished() + publisher.getSkipped());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void dropKeepsServingOtherSubscribers() throws Exception {
+        int[][] routes = GossipRunner.CannedRoute.ROUTE3.route;
+        try(TickPublisher publisher = new TickPublisher(Runnable::run, 4)) {
+            Collector fast = new Collector(Long.MAX_VALUE);
+            Collector stalled = new Collector(0); // never requests anything
+            publisher.subscribe(fast);
+            publisher.subscribe(stalled);
+            Gossip gossip = new Gossip(routes).setTickPublisher(publisher).eval();
+            int ticks = gossip.getFinalTick() + 1;
+            Assert.assertEquals("the stalled subscriber doesn't starve the fast one", ticks, fast.ticks.size());
+            Assert.assertEquals(ticks, publisher.getPublished());
+            Assert.assertEquals("dropped for the stalled one only", ticks - 4, publisher.getDropped());
+            Assert.assertEquals(0, publisher.getSkipped());
+            Assert.assertTrue(stalled.ticks.isEmpty());
+        }
+    }
+
+    @Test
+    public void noSubscribers() {
+        try(TickPublisher publisher = new TickPublisher(Runnable::run, 1).setPolicy(TickPublisher.Policy.BLOCK)) {
+            Assert.assertEquals("5", new Gossip(ROUTES).setTickPublisher(publisher).eval().getResult());
+            Assert.assertEquals(0, publisher.getPublished());
+        }
+    }
+
+    private static String debugOutput(int[][] routes) {
+        ByteArrayOutputStream debug = new ByteArrayOutputStream();
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(debug, true));
+        try {
+            new Gossip(routes).setDebug(true).eval();
+        } finally {
+            System.setOut(out);
+        }
+        return debug.toString();
+    }
+
+    private static final class Collector implements Flow.Subscriber<GossipTick> {
+
+        final List<GossipTick> ticks = new CopyOnWriteArrayList<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final long requested;
+
+        Collector(long requested) {
+            this.requested = requested;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            if(requested > 0) {
+                subscription.request(requested);
+            }
+        }
+
+        @Override
+        public void onNext(GossipTick tick) {
+            ticks.add(tick);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+
+        void await() throws InterruptedException {
+            Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.javajedi.gossip;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.fail;
+
+public class TraceReplayTest {
+
+    @Test
+    public void replayMatchesDebugOutput() throws IOException {
+        for(GossipRunner.CannedRoute canned : GossipRunner.CannedRoute.values()) {
+            assertReplayMatches(canned.name(), new Gossip(canned.route));
+            assertReplayMatches(canned.name() + " bonus", new GossipBonus(canned.route));
+            assertReplayMatches(canned.name() + " schedule", new Gossip(canned.route).setScheduleBound(1000));
+        }
+    }
+
+    @Test
+    public void moreRoutesThanOneWord() throws IOException {
+        int[][] routes = new int[70][];
+        for(int i = 0; i < routes.length; ++i) {
+            routes[i] = new int[] {i, i + 1, 100 + i % 3};
+        }
+        assertReplayMatches("70 drivers", new Gossip(routes));
+    }
+
+    @Test
+    public void seek() throws IOException {
+        int[][] routes = GossipRunner.CannedRoute.ROUTE3.route;
+        byte[] trace = record(new Gossip(routes));
+        try(TraceReplay replay = new TraceReplay(new ByteArrayInputStream(trace))) {
+            Assert.assertEquals(-1, replay.getMinute());
+            Assert.assertTrue(replay.seek(10));
+            Assert.assertEquals(10, replay.getMinute());
+            Assert.assertEquals("position", 10 % routes[4].length, replay.getLocation(4));
+            Assert.assertFalse("trace ends at minute 15", replay.seek(16));
+            Assert.assertEquals("16", replay.getResult());
+            Assert.assertEquals(15, replay.getFinalTick());
+            try {
+                replay.seek(3);
+                fail("should have thrown");
+            } catch( IllegalStateException ex) {}
+        }
+    }
+
+    @Test
+    public void noMinutesTraced() throws IOException {
+        // disconnected: decided before simulating
+        byte[] trace = record(new Gossip(new int[][] {{1,2}, {3,4}}));
+        try(TraceReplay replay = new TraceReplay(new ByteArrayInputStream(trace))) {
+            Assert.assertFalse(replay.next());
+            Assert.assertEquals("never", replay.getResult());
+        }
+    }
+
+    @Test
+    public void notATrace() throws IOException {
+        try {
+            new TraceReplay(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}));
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+    }
+
+    @Test
+    public void truncatedTrace() throws IOException {
+        byte[] trace = record(new Gossip(GossipRunner.CannedRoute.ROUTE0.route));
+        byte[] truncated = Arrays.copyOf(trace, trace.length - 20);
+        try(TraceReplay replay = new TraceReplay(new ByteArrayInputStream(truncated))) {
+            while(replay.next()) {
+                // replay up to the truncation
+            }
+            fail("should have thrown");
+        } catch( IllegalArgumentException ex) {}
+    }
+
+    // the replay renders exactly what -d prints, and ends with the same result
+    private void assertReplayMatches(String message, Gossip gossip) throws IOException {
+        ByteArrayOutputStream trace = new ByteArrayOutputStream();
+        ByteArrayOutputStream debug = new ByteArrayOutputStream();
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(debug, true));
+        try {
+            gossip.setDebug(true).setTraceStream(trace).eval();
+        } finally {
+            System.setOut(out);
+        }
+        StringBuilder replayed = new StringBuilder();
+        try(TraceReplay replay = new TraceReplay(new ByteArrayInputStream(trace.toByteArray()))) {
+            while(replay.next()) {
+                replayed.append(replay.render());
+            }
+            Assert.assertEquals(message, gossip.getResult(), replay.getResult());
+            Assert.assertEquals(message, gossip.getFinalTick(), replay.getFinalTick());
+        }
+        Assert.assertEquals(message, debug.toString(), replayed.toString());
+    }
+
+    private byte[] record(Gossip gossip) {
+        ByteArrayOutputStream trace = new ByteArrayOutputStream();
+        gossip.setTraceStream(trace).eval();
+        return trace.toByteArray();
+    }
+}